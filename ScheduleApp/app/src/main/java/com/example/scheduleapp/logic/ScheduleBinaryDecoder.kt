@@ -0,0 +1,106 @@
+package com.example.scheduleapp.logic
+
+import com.example.scheduleapp.data.entity.RecurrenceRule
+import com.example.scheduleapp.data.entity.ScheduleItem
+import java.nio.ByteBuffer
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.ZoneOffset
+
+const val SCHEDULE_BINARY_MEDIA_TYPE = "application/x-schedule-binary"
+private const val SCHEDULE_BINARY_VERSION = 2L
+private const val SCHEDULE_BINARY_VERSION_MINUTES = 1L
+
+// Зеркало ScheduleBinaryCodec на сервере: varint, 0 = null, значения со сдвигом +1,
+// время - zigzag секунд от эпохи (в v1 - минуты), даты исключений - zigzag-разности эпохальных дней
+fun decodeScheduleBinary(bytes: ByteArray): List<ScheduleItem> {
+    val buffer = ByteBuffer.wrap(bytes)
+
+    val version = buffer.readVarint()
+    require(version == SCHEDULE_BINARY_VERSION || version == SCHEDULE_BINARY_VERSION_MINUTES) { "Unsupported schedule binary version: $version" }
+
+    val strings = Array(buffer.readVarint().toInt()) {
+        val data = ByteArray(buffer.readVarint().toInt())
+        buffer.get(data)
+        String(data, Charsets.UTF_8)
+    }
+
+    val lessonCount = buffer.readVarint().toInt()
+    val items = ArrayList<ScheduleItem>(lessonCount)
+    repeat(lessonCount) {
+        val discipline = strings.at(buffer.readVarint())
+        val lessonType = strings.at(buffer.readVarint())
+        val startTime = buffer.readVarint().toDateTime(version)
+        val endTime = buffer.readVarint().toDateTime(version)
+        val rooms = buffer.readStringList(strings)
+        val teachers = buffer.readStringList(strings)
+        val groups = buffer.readStringList(strings)
+        val groupsSummary = strings.at(buffer.readVarint())
+        val description = strings.at(buffer.readVarint())
+        val recurrence = buffer.readRecurrence(strings, version)
+        val exceptions = buffer.readExceptions()
+
+        items.add(
+            ScheduleItem(
+                discipline = discipline ?: "",
+                lessonType = lessonType ?: "",
+                startTime = requireNotNull(startTime) { "Lesson without start time" },
+                endTime = requireNotNull(endTime) { "Lesson without end time" },
+                rooms = rooms ?: emptyList(),
+                teachers = teachers ?: emptyList(),
+                groups = groups ?: emptyList(),
+                groupsSummary = groupsSummary ?: "",
+                description = description?.takeIf { it != "null" && it.isNotEmpty() },
+                recurrence = recurrence,
+                exceptions = exceptions ?: emptyList()
+            )
+        )
+    }
+    return items
+}
+
+private fun ByteBuffer.readVarint(): Long {
+    var result = 0L
+    var shift = 0
+    while (true) {
+        val b = get().toInt()
+        result = result or ((b and 0x7F).toLong() shl shift)
+        if (b and 0x80 == 0) return result
+        shift += 7
+        require(shift <= 63) { "Varint is too long" }
+    }
+}
+
+private fun Array<String>.at(ref: Long): String? = if (ref == 0L) null else this[(ref - 1).toInt()]
+
+private fun Long.unzigzag(): Long = (this ushr 1) xor -(this and 1)
+
+private fun Long.toDateTime(version: Long): LocalDateTime? {
+    if (this == 0L) return null
+    val epochSecond = if (version == SCHEDULE_BINARY_VERSION_MINUTES) (this - 1) * 60 else (this - 1).unzigzag()
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)
+}
+
+private fun ByteBuffer.readStringList(strings: Array<String>): List<String>? {
+    val count = readVarint()
+    if (count == 0L) return null
+    return List((count - 1).toInt()) { strings.at(readVarint()) ?: "" }
+}
+
+private fun ByteBuffer.readRecurrence(strings: Array<String>, version: Long): RecurrenceRule? {
+    if (readVarint() == 0L) return null
+    val frequency = strings.at(readVarint())
+    val interval = readVarint().let { if (it == 0L) null else (it - 1).toInt() }
+    val until = readVarint().toDateTime(version)
+    return RecurrenceRule(frequency = frequency, interval = interval, until = until)
+}
+
+private fun ByteBuffer.readExceptions(): List<LocalDate>? {
+    val count = readVarint()
+    if (count == 0L) return null
+    var previous = 0L
+    return List((count - 1).toInt()) {
+        previous += readVarint().unzigzag()
+        LocalDate.ofEpochDay(previous)
+    }
+}
@@ -8,6 +8,7 @@ import com.example.scheduleapp.data.database.ScheduleRepository
 import com.example.scheduleapp.data.state.PreferencesManager
 import com.example.scheduleapp.util.NetworkMonitor
 import com.example.scheduleapp.util.SemesterUtils
+import okhttp3.ResponseBody
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
 import retrofit2.http.GET
@@ -48,6 +49,10 @@ interface ScheduleApiService {
         "Accept: application/json; charset=utf-8"
     )
     suspend fun getSchedule(@Path("group") group: String): List<ScheduleItemResponse>
+
+    @GET("schedule/final/{group}")
+    @Headers("Accept: $SCHEDULE_BINARY_MEDIA_TYPE")
+    suspend fun getScheduleBinary(@Path("group") group: String): ResponseBody
 }
 
 fun createApiService(): ScheduleApiService {
@@ -140,8 +145,7 @@ suspend fun getScheduleItemsWithCache(
 
         Log.d("SCHEDULE_CACHE", "Loading from server for group: $group")
         val apiService = createApiService()
-        val response = apiService.getSchedule(group)
-        val scheduleItems = parseScheduleFromResponse(response)
+        val scheduleItems = decodeScheduleBinary(apiService.getScheduleBinary(group).bytes())
 
         if (repository != null && scheduleItems.isNotEmpty()) {
             repository.cacheScheduleItemsWithSemester(group, scheduleItems, currentSemester, cacheTtlDays)
@@ -0,0 +1,54 @@
+package com.example.scheduleapp.logic
+
+import com.example.scheduleapp.data.entity.RecurrenceRule
+import com.example.scheduleapp.data.entity.ScheduleItem
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Test
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+// Эталон кодирует сервер (ScheduleBinaryCodecTest.goldenSchedule), и серверный тест
+// проверяет, что эта копия файла совпадает с его собственной
+class ScheduleBinaryDecoderTest {
+
+    @Test
+    fun decodesServerGoldenFile() {
+        val bytes = javaClass.getResourceAsStream("/binary/schedule-golden.bin")
+        assertNotNull("нет эталонного файла", bytes)
+
+        val items = decodeScheduleBinary(bytes!!.use { it.readBytes() })
+
+        assertEquals(
+            listOf(
+                ScheduleItem(
+                    discipline = "Линейная алгебра",
+                    lessonType = "LK",
+                    startTime = LocalDateTime.of(2025, 9, 1, 9, 0),
+                    endTime = LocalDateTime.of(2025, 9, 1, 10, 30),
+                    rooms = listOf("А-419 (В-78)"),
+                    teachers = listOf("Иванов Иван Иванович"),
+                    groups = listOf("ИКБО-01-23", "ИКБО-02-23"),
+                    groupsSummary = "ИКБО-01-23, ИКБО-02-23",
+                    description = null,
+                    recurrence = RecurrenceRule("WEEKLY", 2, LocalDateTime.of(2025, 12, 28, 23, 59, 59)),
+                    exceptions = listOf(LocalDate.of(2025, 11, 4), LocalDate.of(1969, 12, 31))
+                ),
+                ScheduleItem(
+                    discipline = "Физика",
+                    lessonType = "LAB",
+                    startTime = LocalDateTime.of(2025, 9, 3, 10, 40),
+                    endTime = LocalDateTime.of(2025, 9, 3, 12, 10),
+                    rooms = emptyList(),
+                    teachers = emptyList(),
+                    groups = listOf("ИКБО-01-23"),
+                    groupsSummary = "ИКБО-01-23",
+                    description = "Подгруппа 1",
+                    recurrence = RecurrenceRule("WEEKLY", null, null),
+                    exceptions = emptyList()
+                )
+            ),
+            items
+        )
+    }
+}
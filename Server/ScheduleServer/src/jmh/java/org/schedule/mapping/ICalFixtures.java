@@ -0,0 +1,179 @@
+package org.schedule.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Ленты в формате MIREA: недельные маркеры на весь день, RRULE через неделю с EXDATE на праздники,
+// DESCRIPTION с преподавателем и группами, X-META-* с параметрами и перенос строк по 75 октетов.
+// Размеры соответствуют типичным лентам: группа ~30 событий, преподаватель ~400, аудитория ~3000
+final class ICalFixtures {
+
+    static final String SMALL_GROUP = "smallGroup";
+    static final String LARGE_TEACHER = "largeTeacher";
+    static final String HUGE_ROOM = "hugeRoom";
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final LocalDate SEMESTER_START = LocalDate.of(2025, 9, 1);
+    private static final int SEMESTER_WEEKS = 17;
+    private static final List<LocalDate> HOLIDAYS = List.of(LocalDate.of(2025, 11, 4), LocalDate.of(2025, 11, 3));
+
+    private static final LocalTime[] PAIR_STARTS = {
+            LocalTime.of(9, 0), LocalTime.of(10, 40), LocalTime.of(12, 40),
+            LocalTime.of(14, 20), LocalTime.of(16, 20), LocalTime.of(18, 0)
+    };
+    private static final String[] TYPES = {"ЛК", "ПР", "ЛАБ"};
+    private static final String[] DISCIPLINES = {"Математический анализ", "Линейная алгебра и аналитическая геометрия",
+            "Физика", "Программирование на языке Java", "Базы данных", "Операционные системы",
+            "Компьютерные сети", "Дискретная математика", "Теория вероятностей и математическая статистика",
+            "Иностранный язык", "Философия", "Архитектура вычислительных машин и систем",
+            "Информационная безопасность", "Алгоритмы и структуры данных", "Разработка клиент-серверных приложений"};
+    private static final String[] SURNAMES = {"Иванов", "Петров", "Смирнов", "Кузнецов", "Соколов", "Михайлов",
+            "Новиков", "Федоров", "Морозов", "Волков", "Лебедев", "Семенов"};
+    private static final String[] NAMES = {"Александр Сергеевич", "Дмитрий Андреевич", "Алексей Викторович",
+            "Евгений Игоревич", "Олег Павлович", "Максим Олегович"};
+
+    private ICalFixtures() {}
+
+    static String title(String feed) {
+        switch (feed) {
+            case SMALL_GROUP: return "ИКБО-01-23";
+            case LARGE_TEACHER: return "Иванов Александр Сергеевич";
+            case HUGE_ROOM: return "А-419 (В-78)";
+            default: throw new IllegalArgumentException("Неизвестная лента: " + feed);
+        }
+    }
+
+    static byte[] feed(String feed) {
+        Random random = new Random(42);
+        String title = title(feed);
+        StringBuilder ical = new StringBuilder(1 << 16)
+                .append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//RTU MIREA//Schedule//RU\r\nCALSCALE:GREGORIAN\r\n")
+                .append("X-WR-CALNAME:").append(title).append("\r\n")
+                .append("X-WR-TIMEZONE:Europe/Moscow\r\n");
+
+        for (int week = 0; week < SEMESTER_WEEKS; week++) {
+            LocalDate monday = SEMESTER_START.plusWeeks(week);
+            ical.append("BEGIN:VEVENT\r\n")
+                    .append("DTSTART;VALUE=DATE:").append(DATE.format(monday)).append("\r\n")
+                    .append("DTEND;VALUE=DATE:").append(DATE.format(monday.plusDays(1))).append("\r\n")
+                    .append("SUMMARY:").append(week + 1).append(" неделя\r\n")
+                    .append("UID:week-").append(week + 1).append("@mirea.ru\r\n")
+                    .append("END:VEVENT\r\n");
+        }
+
+        switch (feed) {
+            case SMALL_GROUP:
+                for (int i = 0; i < 14; i++) {
+                    appendEvent(ical, random, i, recurringStart(random), true,
+                            randomTeacher(random), randomRoom(random), List.of(title));
+                }
+                break;
+            case LARGE_TEACHER:
+                for (int i = 0; i < 380; i++) {
+                    appendEvent(ical, random, i, singleStart(random), random.nextInt(4) == 0,
+                            title, randomRoom(random), randomGroups(random, 1 + random.nextInt(6)));
+                }
+                break;
+            default:
+                for (int i = 0; i < 3000; i++) {
+                    appendEvent(ical, random, i, singleStart(random), random.nextInt(10) == 0,
+                            randomTeacher(random), title, randomGroups(random, 1 + random.nextInt(4)));
+                }
+        }
+
+        return ical.append("END:VCALENDAR\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendEvent(StringBuilder ical, Random random, int index, LocalDateTime start, boolean recurring,
+                                    String teacher, String room, List<String> groups) {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        String discipline = DISCIPLINES[random.nextInt(DISCIPLINES.length)];
+        String groupList = String.join(", ", groups);
+        // в лентах аудиторий и преподавателей встречаются повторы одного занятия по подгруппам
+        int copies = random.nextInt(20) == 0 ? 2 : 1;
+
+        for (int copy = 0; copy < copies; copy++) {
+            ical.append("BEGIN:VEVENT\r\n");
+            line(ical, "DTSTART;TZID=Europe/Moscow:" + DATE_TIME.format(start));
+            line(ical, "DTEND;TZID=Europe/Moscow:" + DATE_TIME.format(start.plusMinutes(90)));
+            if (recurring) {
+                line(ical, "RRULE:FREQ=WEEKLY;INTERVAL=2;UNTIL="
+                        + DATE.format(SEMESTER_START.plusWeeks(SEMESTER_WEEKS)) + "T235959Z");
+                for (LocalDate holiday : HOLIDAYS) {
+                    if (holiday.getDayOfWeek() == start.getDayOfWeek()) {
+                        line(ical, "EXDATE;TZID=Europe/Moscow:" + DATE_TIME.format(holiday.atTime(start.toLocalTime())));
+                    }
+                }
+            }
+            line(ical, "SUMMARY:" + type + " " + discipline);
+            line(ical, "CATEGORIES:" + type);
+            line(ical, "LOCATION:" + room);
+            line(ical, "DESCRIPTION:Преподаватель: " + teacher + "\\nГруппы: " + groupList);
+            line(ical, "X-META-DISCIPLINE:" + discipline);
+            line(ical, "X-META-TEACHER;X-META-ID=" + Math.abs(teacher.hashCode() % 10000) + ":" + teacher);
+            for (int g = 0; g < groups.size(); g++) {
+                line(ical, "X-META-GROUP;X-META-ID=" + (1000 + g) + ":" + groups.get(g));
+            }
+            line(ical, "UID:" + index + "-" + copy + "@mirea.ru");
+            ical.append("END:VEVENT\r\n");
+        }
+    }
+
+    // перенос по RFC 5545: строки длиннее 75 октетов продолжаются с пробелом в начале
+    private static void line(StringBuilder ical, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= 75) {
+            ical.append(content).append("\r\n");
+            return;
+        }
+
+        int octets = 0;
+        int limit = 75;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            if (octets + size > limit) {
+                ical.append("\r\n ");
+                octets = 0;
+                limit = 74;
+            }
+            ical.append(c);
+            octets += size;
+        }
+        ical.append("\r\n");
+    }
+
+    private static LocalDateTime recurringStart(Random random) {
+        return SEMESTER_START.plusDays(random.nextInt(6)).plusWeeks(random.nextInt(2))
+                .atTime(PAIR_STARTS[random.nextInt(PAIR_STARTS.length)]);
+    }
+
+    private static LocalDateTime singleStart(Random random) {
+        return SEMESTER_START.plusWeeks(random.nextInt(SEMESTER_WEEKS)).plusDays(random.nextInt(6))
+                .atTime(PAIR_STARTS[random.nextInt(PAIR_STARTS.length)]);
+    }
+
+    private static String randomTeacher(Random random) {
+        return SURNAMES[random.nextInt(SURNAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private static String randomRoom(Random random) {
+        return "А-" + (100 + random.nextInt(400)) + " (В-78)";
+    }
+
+    private static List<String> randomGroups(Random random, int count) {
+        List<String> groups = new ArrayList<>(count);
+        int first = 1 + random.nextInt(60);
+        for (int i = 0; i < count; i++) {
+            groups.add(String.format("ИКБО-%02d-23", first + i));
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,79 @@
+package org.schedule.mapping;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomAvailabilityIndexBenchmark {
+
+    private static final LocalTime[] PAIR_STARTS = {
+            LocalTime.of(9, 0), LocalTime.of(10, 40), LocalTime.of(12, 40),
+            LocalTime.of(14, 20), LocalTime.of(16, 20), LocalTime.of(18, 0)
+    };
+    private static final LocalDate SEMESTER_START = LocalDate.of(2025, 9, 1);
+    private static final int SEMESTER_WEEKS = 17;
+
+    @Param({"1000", "5000"})
+    private int roomCount;
+
+    @Param({"0.5"})
+    private double occupancy;
+
+    private RoomAvailabilityIndex index;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<String, RoomAvailabilityIndex.RoomTimeline> timelines = new HashMap<>();
+
+        for (int room = 0; room < roomCount; room++) {
+            RoomAvailabilityIndex.TimelineBuilder builder = new RoomAvailabilityIndex.TimelineBuilder();
+            for (int day = 0; day < 6; day++) {
+                for (LocalTime pairStart : PAIR_STARTS) {
+                    if (random.nextDouble() >= occupancy) {
+                        continue;
+                    }
+                    int step = random.nextBoolean() ? 1 : 2;
+                    for (int week = 0; week < SEMESTER_WEEKS; week += step) {
+                        LocalDateTime start = SEMESTER_START.plusWeeks(week).plusDays(day).atTime(pairStart);
+                        builder.add(RoomAvailabilityIndex.toMinutes(start),
+                                RoomAvailabilityIndex.toMinutes(start.plusMinutes(90)));
+                    }
+                }
+            }
+            String building = room % 3 == 0 ? "(В-78)" : room % 3 == 1 ? "(В-86)" : "(С-20)";
+            timelines.put("А-" + room + " " + building, builder.build());
+        }
+
+        index = new RoomAvailabilityIndex(null);
+        index.replaceTimelines(timelines);
+
+        from = SEMESTER_START.plusWeeks(7).plusDays(1).atTime(10, 40);
+        to = from.plusMinutes(90);
+    }
+
+    @Benchmark
+    public List<String> allRooms() {
+        return index.findFreeRooms(from, to, null);
+    }
+
+    @Benchmark
+    public List<String> singleBuilding() {
+        return index.findFreeRooms(from, to, "В-78");
+    }
+}
@@ -0,0 +1,117 @@
+package org.schedule.mapping;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.entity.forBD.basic.RoomEntity;
+import org.schedule.entity.forBD.basic.TeacherEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Этапы от ленты до ответа по отдельности: разбор iCal, ключи дедупликации, маппинг в DTO и сериализация.
+// Вместе с -prof gc (по умолчанию в профиле benchmark) показывает и пропускную способность, и gc.alloc.rate.norm
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleHotPathBenchmark {
+
+    @Param({ICalFixtures.SMALL_GROUP, ICalFixtures.LARGE_TEACHER, ICalFixtures.HUGE_ROOM})
+    private String feed;
+
+    private String title;
+    private byte[] content;
+    private ParserToLesson parser;
+    private ScheduleMapper mapper;
+    private ObjectMapper objectMapper;
+    private List<LessonEntity> lessons;
+    private List<ScheduleResponseDto> dtos;
+
+    @Setup
+    public void setUp() {
+        // DEBUG-логи парсера перекрыли бы сам разбор
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        title = ICalFixtures.title(feed);
+        content = ICalFixtures.feed(feed);
+        parser = new ParserToLesson();
+        mapper = new ScheduleMapper(null, parser, null, null, 0);
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        lessons = parser.parseICalendarToLessons(new ByteArrayInputStream(content), StandardCharsets.UTF_8, title);
+        if (lessons.isEmpty()) {
+            throw new IllegalStateException("Парсер не нашел занятий в фикстуре " + feed);
+        }
+        for (LessonEntity lesson : lessons) {
+            // как после сохранения: справочные сущности привязаны к занятию
+            List<TeacherEntity> teachers = new ArrayList<>();
+            for (String name : lesson.getTeacher().split(",\\s*")) {
+                TeacherEntity teacher = new TeacherEntity();
+                teacher.setFullName(name);
+                teachers.add(teacher);
+            }
+            RoomEntity room = new RoomEntity();
+            room.setRoomName(lesson.getRoom());
+            lesson.setTeachers(teachers);
+            lesson.setRooms(List.of(room));
+        }
+        dtos = mapper.toResponseDtoList(lessons);
+
+        System.out.printf("%n%s: %d байт, %d занятий%n", feed, content.length, lessons.size());
+    }
+
+    @Benchmark
+    public List<LessonEntity> parse() {
+        return parser.parseICalendarToLessons(new ByteArrayInputStream(content), StandardCharsets.UTF_8, title);
+    }
+
+    // повторяет SaverToMemory.deduplicateLessons без логирования и побочных эффектов на занятиях
+    @Benchmark
+    public Map<String, LessonEntity> dedup() {
+        Map<String, LessonEntity> uniqueByKey = new LinkedHashMap<>();
+        for (LessonEntity lesson : lessons) {
+            uniqueByKey.putIfAbsent(LessonKeys.naturalKeyHash(lesson), lesson);
+        }
+        return uniqueByKey;
+    }
+
+    @Benchmark
+    public int normalizeGroups() {
+        int length = 0;
+        for (LessonEntity lesson : lessons) {
+            length += LessonKeys.normalizeGroups(lesson.getGroupsSummary()).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public List<ScheduleResponseDto> toResponseDto() {
+        return mapper.toResponseDtoList(lessons);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws Exception {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return ScheduleBinaryCodec.encode(dtos);
+    }
+}
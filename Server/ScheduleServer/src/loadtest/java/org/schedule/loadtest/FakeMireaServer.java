@@ -0,0 +1,388 @@
+package org.schedule.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.schedule.util.SemesterUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Локальная замена MIREA для нагрузочных прогонов: поиск /schedule/api/search?match= и ленты /schedule/api/ical/{target}/{id}.
+// Корпус синтетический (fake.groups, fake.teachers, fake.rooms) или записанный: каталог fake.corpusDir с файлами <название>.ics.
+// Задержка fake.latencyMs + случайная до fake.jitterMs, доля ответов с ошибкой fake.errorRate (статус fake.errorStatus),
+// доля зависших ответов fake.stallRate на fake.stallMs. Сервер расписаний направляется сюда так:
+//   mvn -Ploadtest compile exec:java -Dload.mainClass=org.schedule.loadtest.FakeMireaServer -Dfake.errorRate=0.05
+//   java -jar ScheduleServer.jar --app.upstream.search-url=http://localhost:8090/schedule/api/search?match=
+public class FakeMireaServer {
+
+    private static final int TARGET_GROUP = 1;
+    private static final int TARGET_TEACHER = 2;
+    private static final int TARGET_ROOM = 3;
+
+    private static final DateTimeFormatter ICAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ICAL_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String[] GROUP_PREFIXES = {"ИКБО", "ИНБО", "ИВБО", "ККСО", "БСБО"};
+    private static final String[] SURNAMES = {"Иванов", "Петров", "Сидоров", "Смирнов", "Кузнецов", "Попов", "Васильев",
+            "Соколов", "Михайлов", "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов",
+            "Егоров", "Павлов", "Козлов", "Степанов"};
+    private static final String[] FIRST_NAMES = {"Александр", "Сергей", "Дмитрий", "Андрей", "Алексей", "Максим",
+            "Евгений", "Игорь", "Олег", "Павел"};
+    private static final String[] PATRONYMICS = {"Александрович", "Сергеевич", "Дмитриевич", "Андреевич",
+            "Алексеевич", "Викторович", "Евгеньевич", "Игоревич", "Олегович", "Павлович"};
+    private static final String[] BUILDINGS = {"А", "Б", "В", "Г", "Д", "Е"};
+    private static final String[] DISCIPLINES = {"Математический анализ", "Линейная алгебра", "Физика",
+            "Программирование на языке Java", "Базы данных", "Операционные системы", "Компьютерные сети",
+            "Дискретная математика", "Теория вероятностей", "Английский язык", "Философия", "Физическая культура",
+            "Архитектура вычислительных машин", "Информационная безопасность", "Алгоритмы и структуры данных"};
+    private static final String[] LESSON_TYPES = {"ЛК", "ПР", "ЛАБ"};
+    private static final LocalTime[] PAIR_STARTS = {LocalTime.of(9, 0), LocalTime.of(10, 40), LocalTime.of(12, 40),
+            LocalTime.of(14, 20), LocalTime.of(16, 20), LocalTime.of(18, 0)};
+
+    private final Map<Long, Feed> feedsById = new HashMap<>();
+    private final List<Feed> feeds = new ArrayList<>();
+    private final String publicUrl;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final int errorStatus;
+    private final double stallRate;
+    private final long stallMs;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentSkipListMap<>();
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("fake.port", 8090);
+        FakeMireaServer fake = new FakeMireaServer(System.getProperty("fake.publicUrl", "http://localhost:" + port));
+
+        String corpusDir = System.getProperty("fake.corpusDir");
+        if (corpusDir != null) {
+            fake.loadRecordedCorpus(Path.of(corpusDir));
+        } else {
+            fake.generateSyntheticCorpus(Integer.getInteger("fake.groups", 300), Integer.getInteger("fake.teachers", 400),
+                    Integer.getInteger("fake.rooms", 150), Integer.getInteger("fake.lessonsPerGroup", 14),
+                    Long.getLong("fake.seed", 42L));
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/schedule/api/search", fake::handleSearch);
+        server.createContext("/schedule/api/ical/", fake::handleICal);
+        server.createContext("/fake/entities", fake::handleEntities);
+        server.setExecutor(Executors.newFixedThreadPool(Integer.getInteger("fake.threads", 64)));
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.printf("Ответы: %s%n", fake.counters)));
+        System.out.printf("MIREA-заглушка на порту %d: %d расписаний, задержка %d+%d мс, ошибок %.1f%%, зависаний %.1f%%%n",
+                port, fake.feeds.size(), fake.latencyMs, fake.jitterMs, fake.errorRate * 100, fake.stallRate * 100);
+        Thread.currentThread().join();
+    }
+
+    private FakeMireaServer(String publicUrl) {
+        this.publicUrl = publicUrl;
+        this.latencyMs = Long.getLong("fake.latencyMs", 50L);
+        this.jitterMs = Long.getLong("fake.jitterMs", 50L);
+        this.errorRate = Double.parseDouble(System.getProperty("fake.errorRate", "0"));
+        this.errorStatus = Integer.getInteger("fake.errorStatus", 503);
+        this.stallRate = Double.parseDouble(System.getProperty("fake.stallRate", "0"));
+        this.stallMs = Long.getLong("fake.stallMs", 20_000L);
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (injectFault(exchange, "search")) {
+                return;
+            }
+
+            String match = queryParameter(exchange.getRequestURI(), "match").trim();
+            List<Feed> found = feeds.stream()
+                    .filter(feed -> feed.title.equalsIgnoreCase(match))
+                    .toList();
+            if (found.isEmpty() && !match.isEmpty()) {
+                String needle = match.toLowerCase(Locale.ROOT);
+                found = feeds.stream()
+                        .filter(feed -> feed.title.toLowerCase(Locale.ROOT).contains(needle))
+                        .limit(20)
+                        .toList();
+            }
+
+            String data = found.stream()
+                    .map(feed -> String.format(Locale.ROOT,
+                            "{\"id\":%d,\"targetTitle\":\"%s\",\"fullTitle\":\"%s\",\"scheduleTarget\":%d,\"iCalLink\":\"%s\"}",
+                            feed.id, json(feed.title), json(feed.title), feed.target,
+                            json(publicUrl + "/schedule/api/ical/" + feed.target + "/" + feed.id)))
+                    .collect(Collectors.joining(","));
+            byte[] body = ("{\"data\":[" + data + "],\"nextPageToken\":null}").getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            send(exchange, "search", 200, body);
+        }
+    }
+
+    private void handleICal(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (injectFault(exchange, "ical")) {
+                return;
+            }
+
+            String[] segments = exchange.getRequestURI().getPath().split("/");
+            Feed feed = null;
+            try {
+                feed = feedsById.get(Long.parseLong(segments[segments.length - 1]));
+            } catch (NumberFormatException ignored) {
+            }
+            if (feed == null) {
+                send(exchange, "ical", 404, new byte[0]);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("ETag", feed.etag);
+            if (feed.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                send(exchange, "ical", 304, null);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/calendar; charset=utf-8");
+            send(exchange, "ical", 200, feed.content);
+        }
+    }
+
+    // список названий для load.entitiesUrl нагрузочного теста, без задержек и ошибок
+    private void handleEntities(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = feeds.stream()
+                    .map(feed -> feed.title)
+                    .collect(Collectors.joining("\n"))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            send(exchange, "entities", 200, body);
+        }
+    }
+
+    private boolean injectFault(HttpExchange exchange, String endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            if (stallRate > 0 && random.nextDouble() < stallRate) {
+                Thread.sleep(stallMs);
+            } else if (latencyMs > 0 || jitterMs > 0) {
+                Thread.sleep(latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            send(exchange, endpoint, errorStatus, new byte[0]);
+            return true;
+        }
+        return false;
+    }
+
+    private void send(HttpExchange exchange, String endpoint, int status, byte[] body) throws IOException {
+        counters.computeIfAbsent(endpoint + " " + status, key -> new AtomicLong()).incrementAndGet();
+        if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void loadRecordedCorpus(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".ics")).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            String title = name.substring(0, name.length() - ".ics".length());
+            addFeed(targetOf(title), title, Files.readAllBytes(file));
+        }
+        if (feeds.isEmpty()) {
+            throw new IllegalArgumentException("В каталоге " + dir + " нет файлов .ics");
+        }
+    }
+
+    // Потоковые лекции читаются сразу нескольким группам, поэтому ленты групп, преподавателей
+    // и аудиторий пересекаются так же, как в настоящем расписании
+    private void generateSyntheticCorpus(int groupCount, int teacherCount, int roomCount, int lessonsPerGroup, long seed) {
+        Random random = new Random(seed);
+        List<String> groups = titles(groupCount, this::groupTitle);
+        List<String> teachers = titles(teacherCount, this::teacherTitle);
+        List<String> rooms = titles(roomCount, this::roomTitle);
+
+        String semester = SemesterUtils.getCurrentSemester();
+        LocalDate firstMonday = SemesterUtils.getSemesterStartDate(semester).with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        LocalDate until = firstMonday.plusWeeks(16);
+
+        Map<String, List<String>> events = new LinkedHashMap<>();
+        for (int g = 0; g < groups.size(); g++) {
+            for (int k = 0; k < lessonsPerGroup; k++) {
+                String type = LESSON_TYPES[random.nextInt(LESSON_TYPES.length)];
+                List<String> lessonGroups = new ArrayList<>();
+                int streamSize = "ЛК".equals(type) ? 1 + random.nextInt(3) : 1;
+                for (int s = 0; s < streamSize && g + s < groups.size(); s++) {
+                    lessonGroups.add(groups.get(g + s));
+                }
+                String teacher = teachers.get(random.nextInt(teachers.size()));
+                String room = rooms.get(random.nextInt(rooms.size()));
+                LocalDate day = firstMonday.plusDays(random.nextInt(6)).plusWeeks(random.nextInt(2));
+                LocalTime start = PAIR_STARTS[random.nextInt(PAIR_STARTS.length)];
+
+                String event = vevent(g + "-" + k, DISCIPLINES[random.nextInt(DISCIPLINES.length)], type,
+                        teacher, room, lessonGroups, day, start, until);
+                for (String group : lessonGroups) {
+                    events.computeIfAbsent(group, key -> new ArrayList<>()).add(event);
+                }
+                events.computeIfAbsent(teacher, key -> new ArrayList<>()).add(event);
+                events.computeIfAbsent(room, key -> new ArrayList<>()).add(event);
+            }
+        }
+
+        for (String title : groups) addSynthetic(TARGET_GROUP, title, events, firstMonday);
+        for (String title : teachers) addSynthetic(TARGET_TEACHER, title, events, firstMonday);
+        for (String title : rooms) addSynthetic(TARGET_ROOM, title, events, firstMonday);
+    }
+
+    private void addSynthetic(int target, String title, Map<String, List<String>> events, LocalDate firstMonday) {
+        StringBuilder ical = new StringBuilder()
+                .append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//ScheduleApp//FakeMirea//RU\r\n")
+                .append("X-WR-CALNAME:").append(title).append("\r\n")
+                .append("BEGIN:VEVENT\r\nUID:week-").append(title.hashCode()).append("\r\n")
+                .append("DTSTART;VALUE=DATE:").append(ICAL_DATE.format(firstMonday)).append("\r\n")
+                .append("DTEND;VALUE=DATE:").append(ICAL_DATE.format(firstMonday.plusDays(1))).append("\r\n")
+                .append("SUMMARY:1 неделя\r\nEND:VEVENT\r\n");
+        for (String event : events.getOrDefault(title, List.of())) {
+            ical.append(event);
+        }
+        ical.append("END:VCALENDAR\r\n");
+        addFeed(target, title, ical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String vevent(String uid, String discipline, String type, String teacher, String room,
+                          List<String> groups, LocalDate day, LocalTime start, LocalDate until) {
+        StringBuilder event = new StringBuilder()
+                .append("BEGIN:VEVENT\r\n")
+                .append("UID:").append(uid).append("\r\n")
+                .append("DTSTART;TZID=Europe/Moscow:").append(ICAL_DATE_TIME.format(day.atTime(start))).append("\r\n")
+                .append("DTEND;TZID=Europe/Moscow:").append(ICAL_DATE_TIME.format(day.atTime(start.plusMinutes(90)))).append("\r\n")
+                .append("RRULE:FREQ=WEEKLY;INTERVAL=2;UNTIL=").append(ICAL_DATE.format(until)).append("T235959Z\r\n")
+                .append("SUMMARY:").append(type).append(" ").append(discipline).append("\r\n")
+                .append("CATEGORIES:").append(type).append("\r\n")
+                .append("LOCATION:").append(room).append("\r\n")
+                .append("X-META-DISCIPLINE:").append(discipline).append("\r\n")
+                .append("X-META-TEACHER:").append(teacher).append("\r\n");
+        for (int i = 0; i < groups.size(); i++) {
+            event.append("X-META-GROUP;X-META-ID=").append(i + 1).append(":").append(groups.get(i)).append("\r\n");
+        }
+        return event.append("END:VEVENT\r\n").toString();
+    }
+
+    private List<String> titles(int count, IntFunction<String> naming) {
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add(naming.apply(i));
+        }
+        return titles;
+    }
+
+    private String groupTitle(int i) {
+        return String.format("%s-%02d-%02d", GROUP_PREFIXES[i % GROUP_PREFIXES.length],
+                (i / GROUP_PREFIXES.length) % 99 + 1, 22 + i / (GROUP_PREFIXES.length * 99));
+    }
+
+    private String teacherTitle(int i) {
+        int surnames = SURNAMES.length;
+        int names = FIRST_NAMES.length;
+        String title = SURNAMES[i % surnames] + " " + FIRST_NAMES[(i / surnames) % names] + " "
+                + PATRONYMICS[(i / (surnames * names)) % PATRONYMICS.length];
+        int round = i / (surnames * names * PATRONYMICS.length);
+        // суффикс только при исчерпании сочетаний ФИО
+        return round == 0 ? title : title + " " + (round + 1);
+    }
+
+    private String roomTitle(int i) {
+        return BUILDINGS[i % BUILDINGS.length] + "-" + (101 + i / BUILDINGS.length);
+    }
+
+    private void addFeed(int target, String title, byte[] content) {
+        Feed feed = new Feed(feeds.size() + 1L, target, title, content);
+        feeds.add(feed);
+        feedsById.put(feed.id, feed);
+    }
+
+    // те же правила, что и у сервера при определении типа сущности по названию
+    private static int targetOf(String title) {
+        if (title.matches("[А-ЯA-Z0-9]{2,4}-\\d{2}-\\d{2}")) {
+            return TARGET_GROUP;
+        }
+        String[] words = title.split("\\s+");
+        if (words.length >= 2 && Arrays.stream(words).allMatch(word -> Character.isUpperCase(word.charAt(0)))) {
+            return TARGET_TEACHER;
+        }
+        return TARGET_ROOM;
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return "";
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    private static String json(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Feed {
+        private final long id;
+        private final int target;
+        private final String title;
+        private final byte[] content;
+        private final String etag;
+
+        private Feed(long id, int target, String title, byte[] content) {
+            this.id = id;
+            this.target = target;
+            this.title = title;
+            this.content = content;
+            this.etag = FakeMireaServer.etag(content);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package org.schedule.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Замкнутая модель нагрузки: load.concurrency пользователей без пауз запрашивают пути из load.paths по кругу.
+// Для сравнения режимов сервер запускается дважды с одинаковыми параметрами нагрузки:
+//   java -jar ScheduleServer.jar
+//   java -jar ScheduleServer.jar --spring.threads.virtual.enabled=true   (Java 21)
+// Смешанная нагрузка задается весами load.mix=final:70,multi:20,batch:10 по сущностям из load.entities
+// или load.entitiesUrl (например, http://localhost:8090/fake/entities у FakeMireaServer).
+// Популярность сущностей распределена по Ципфу с показателем load.skew (0 — равномерно)
+public class ScheduleLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl", "http://localhost:8080");
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 5);
+        int timeoutSeconds = Integer.getInteger("load.timeoutSeconds", 60);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+                .build();
+
+        Duration timeout = Duration.ofSeconds(timeoutSeconds);
+        String mix = System.getProperty("load.mix");
+        List<Scenario> scenarios = mix != null
+                ? mixScenarios(baseUrl, mix, loadEntities(client), timeout)
+                : List.of(pathsScenario(baseUrl, timeout));
+
+        System.out.printf("Нагрузка: %s, пользователей %d, прогрев %d с, замер %d с, сценарии: %s%n",
+                baseUrl, concurrency, warmupSeconds, durationSeconds,
+                scenarios.stream().map(scenario -> scenario.name + ":" + scenario.weight).collect(Collectors.joining(",")));
+
+        if (warmupSeconds > 0) {
+            run(client, scenarios, concurrency, warmupSeconds);
+        }
+        Map<String, Result> results = run(client, scenarios, concurrency, durationSeconds);
+
+        Result total = new Result();
+        results.forEach((name, result) -> {
+            result.print(name, durationSeconds);
+            total.merge(result);
+        });
+        if (results.size() > 1) {
+            total.print("всего", durationSeconds);
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, Result> run(HttpClient client, List<Scenario> scenarios, int concurrency,
+                                           int durationSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Scenario scenario : scenarios) {
+            results.put(scenario.name, new Result());
+        }
+        int totalWeight = scenarios.stream().mapToInt(scenario -> scenario.weight).sum();
+
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int user = 0; user < concurrency; user++) {
+            users.execute(() -> {
+                Map<String, List<Long>> latencies = new HashMap<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Scenario scenario = pick(scenarios, random.nextInt(totalWeight));
+                        Result result = results.get(scenario.name);
+                        HttpRequest request = scenario.requests.apply(random);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            latencies.computeIfAbsent(scenario.name, name -> new ArrayList<>()).add(System.nanoTime() - start);
+                            result.statuses.computeIfAbsent(response.statusCode(), code -> new AtomicLong()).incrementAndGet();
+                            result.bytes.addAndGet(response.body().length);
+                        } catch (Exception e) {
+                            result.errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latencies.forEach((name, values) -> results.get(name).addLatencies(values));
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        users.shutdown();
+        return results;
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int point) {
+        for (Scenario scenario : scenarios) {
+            point -= scenario.weight;
+            if (point < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private static Scenario pathsScenario(String baseUrl, Duration timeout) {
+        List<URI> uris = new ArrayList<>();
+        for (String path : System.getProperty("load.paths", "/schedule/final/ИКБО-01-23").split(",")) {
+            uris.add(URI.create(baseUrl + encodePath(path.trim())));
+        }
+        AtomicInteger index = new AtomicInteger();
+        return new Scenario("paths", 1, random -> get(uris.get(Math.floorMod(index.getAndIncrement(), uris.size())), timeout));
+    }
+
+    private static List<Scenario> mixScenarios(String baseUrl, String mix, List<String> entities, Duration timeout) {
+        if (entities.isEmpty()) {
+            throw new IllegalArgumentException("Для load.mix нужен список сущностей: load.entities или load.entitiesUrl");
+        }
+        EntitySampler sampler = new EntitySampler(entities, Double.parseDouble(System.getProperty("load.skew", "1.0")));
+        int multiSize = Integer.getInteger("load.multiSize", 3);
+        int batchSize = Integer.getInteger("load.batchSize", 20);
+        URI batchUri = URI.create(baseUrl + "/schedule/metadata/batch");
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            String name = nameAndWeight[0].trim();
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+            if (weight <= 0) {
+                continue;
+            }
+
+            Function<ThreadLocalRandom, HttpRequest> requests;
+            switch (name) {
+                case "final":
+                    requests = random -> get(URI.create(baseUrl + encodePath("/schedule/final/" + sampler.next(random))), timeout);
+                    break;
+                case "multi":
+                    requests = random -> get(URI.create(baseUrl + encodePath("/schedule/final/"
+                            + String.join(":", sampler.distinct(random, multiSize)))), timeout);
+                    break;
+                case "batch":
+                    requests = random -> HttpRequest.newBuilder(batchUri)
+                            .timeout(timeout)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(jsonArray(sampler.distinct(random, batchSize))))
+                            .build();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный сценарий в load.mix: " + name);
+            }
+            scenarios.add(new Scenario(name, weight, requests));
+        }
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("В load.mix нет сценариев с положительным весом: " + mix);
+        }
+        return scenarios;
+    }
+
+    private static List<String> loadEntities(HttpClient client) throws Exception {
+        String entities = System.getProperty("load.entities");
+        if (entities != null) {
+            return Arrays.stream(entities.split(","))
+                    .map(String::trim)
+                    .filter(entity -> !entity.isEmpty())
+                    .toList();
+        }
+
+        String entitiesUrl = System.getProperty("load.entitiesUrl");
+        if (entitiesUrl == null) {
+            return List.of("ИКБО-01-23");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(entitiesUrl)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Список сущностей недоступен: " + entitiesUrl + " -> " + response.statusCode());
+        }
+        int limit = Integer.getInteger("load.entitiesLimit", Integer.MAX_VALUE);
+        return response.body().lines()
+                .map(String::trim)
+                .filter(entity -> !entity.isEmpty())
+                .limit(limit)
+                .toList();
+    }
+
+    private static HttpRequest get(URI uri, Duration timeout) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+    }
+
+    private static String encodePath(String path) {
+        return Arrays.stream(path.split("/", -1))
+                .map(segment -> URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"))
+                .collect(Collectors.joining("/"));
+    }
+
+    private static String jsonArray(List<String> values) {
+        return values.stream()
+                .map(value -> "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static class Scenario {
+        private final String name;
+        private final int weight;
+        private final Function<ThreadLocalRandom, HttpRequest> requests;
+
+        private Scenario(String name, int weight, Function<ThreadLocalRandom, HttpRequest> requests) {
+            this.name = name;
+            this.weight = weight;
+            this.requests = requests;
+        }
+    }
+
+    // несколько групп запрашиваются намного чаще остальных, как и в реальном трафике
+    private static class EntitySampler {
+        private final List<String> entities;
+        private final double[] cumulative;
+
+        private EntitySampler(List<String> entities, double skew) {
+            this.entities = entities;
+            this.cumulative = new double[entities.size()];
+            double sum = 0;
+            for (int i = 0; i < entities.size(); i++) {
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+        }
+
+        private String next(ThreadLocalRandom random) {
+            double point = random.nextDouble(cumulative[cumulative.length - 1]);
+            int index = Arrays.binarySearch(cumulative, point);
+            return entities.get(index >= 0 ? index : Math.min(-index - 1, entities.size() - 1));
+        }
+
+        private List<String> distinct(ThreadLocalRandom random, int count) {
+            Set<String> picked = new LinkedHashSet<>();
+            int target = Math.min(count, entities.size());
+            for (int attempt = 0; picked.size() < target && attempt < target * 10; attempt++) {
+                picked.add(next(random));
+            }
+            return new ArrayList<>(picked);
+        }
+    }
+
+    // общий для ScheduleLoadTest и UpstreamLoadTest
+    static class Result {
+        final Map<Integer, AtomicLong> statuses = new ConcurrentSkipListMap<>();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        private final List<Long> latencies = new ArrayList<>();
+
+        synchronized void addLatencies(List<Long> values) {
+            latencies.addAll(values);
+        }
+
+        synchronized void merge(Result other) {
+            latencies.addAll(other.latencies);
+            other.statuses.forEach((status, count) ->
+                    statuses.computeIfAbsent(status, code -> new AtomicLong()).addAndGet(count.get()));
+            errors.addAndGet(other.errors.get());
+            bytes.addAndGet(other.bytes.get());
+        }
+
+        synchronized void print(String name, int durationSeconds) {
+            Collections.sort(latencies);
+            System.out.printf("[%s] Запросов: %d, ошибок: %d, статусы: %s%n", name, latencies.size(), errors.get(), statuses);
+            System.out.printf("[%s] Пропускная способность: %.1f запросов/с, %.1f КБ/с%n",
+                    name, latencies.size() / (double) durationSeconds, bytes.get() / 1024.0 / durationSeconds);
+            System.out.printf("[%s] Задержка, мс: p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n",
+                    name, percentile(50), percentile(95), percentile(99), percentile(100));
+        }
+
+        private double percentile(double percent) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percent / 100.0 * latencies.size()) - 1;
+            return latencies.get(Math.max(0, Math.min(index, latencies.size() - 1))) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.schedule.loadtest;
+
+import ch.qos.logback.classic.Level;
+import org.schedule.config.AppConfig;
+import org.schedule.entity.apidata.ResponseDto;
+import org.schedule.entity.schedule.FeedFetchResult;
+import org.schedule.mapping.ParserToLesson;
+import org.schedule.mapping.ScheduleMapper;
+import org.schedule.mapping.UpstreamGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузка на путь загрузки из MIREA без БД и Tomcat: load.concurrency пользователей без пауз вызывают
+// ScheduleMapper.mapToResponseDto и fetchFeeds для случайных сущностей FakeMireaServer (load.fakeUrl).
+// Исполнитель upstreamExecutor собирается AppConfig так же, как на сервере: load.virtual=true соответствует
+// spring.threads.virtual.enabled=true (Java 21), и тогда пользователи тоже виртуальные, как потоки Tomcat.
+//   mvn -Ploadtest compile exec:java -Dload.mainClass=org.schedule.loadtest.UpstreamLoadTest -Dload.virtual=true
+public class UpstreamLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        String fakeUrl = System.getProperty("load.fakeUrl", "http://localhost:8090");
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 5);
+        int upstreamConcurrency = Integer.getInteger("load.upstreamConcurrency", 4);
+        boolean virtual = Boolean.getBoolean("load.virtual");
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("load",
+                Map.of("spring.threads.virtual.enabled", String.valueOf(virtual))));
+        if (virtual && !Threading.VIRTUAL.isActive(environment)) {
+            throw new IllegalStateException("load.virtual=true требует Java 21, запущено на " + Runtime.version());
+        }
+
+        AppConfig config = new AppConfig();
+        RestTemplate restTemplate = config.restTemplate(3000, 15000);
+        Executor upstreamExecutor = config.upstreamExecutor(environment, upstreamConcurrency, 200);
+        // порог автомата выше числа пользователей: замеряется пропускная способность, а не отказы
+        UpstreamGateway gateway = new UpstreamGateway(3, 200, 2000, 0.1, 10, concurrency * 10, 30);
+        ScheduleMapper mapper = new ScheduleMapper(restTemplate, new ParserToLesson(), upstreamExecutor, gateway, 45000);
+
+        String searchUrl = fakeUrl + "/schedule/api/search?match=";
+        List<String> entities = loadEntities(fakeUrl + "/fake/entities");
+
+        System.out.printf("Нагрузка на MIREA-путь: %s, Java %s, потоки %s, пользователей %d, upstream %d, сущностей %d%n",
+                fakeUrl, Runtime.version().feature(), virtual ? "виртуальные" : "платформенные",
+                concurrency, upstreamConcurrency, entities.size());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (warmupSeconds > 0) {
+            run(mapper, searchUrl, entities, concurrency, warmupSeconds, virtual);
+        }
+        threads.resetPeakThreadCount();
+        ScheduleLoadTest.Result result = run(mapper, searchUrl, entities, concurrency, durationSeconds, virtual);
+
+        result.print("mirea", durationSeconds);
+        System.out.printf("[mirea] Потоков платформы: пик %d%n", threads.getPeakThreadCount());
+        System.exit(0);
+    }
+
+    private static ScheduleLoadTest.Result run(ScheduleMapper mapper, String searchUrl, List<String> entities,
+                                               int concurrency, int durationSeconds, boolean virtual)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ScheduleLoadTest.Result result = new ScheduleLoadTest.Result();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        Executor users = virtual ? new VirtualThreadTaskExecutor("load-user-") : Executors.newFixedThreadPool(concurrency);
+        for (int user = 0; user < concurrency; user++) {
+            users.execute(() -> {
+                List<Long> latencies = new ArrayList<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String entity = entities.get(random.nextInt(entities.size()));
+                        long start = System.nanoTime();
+                        try {
+                            List<ResponseDto> response = mapper.mapToResponseDto(List.of(entity), searchUrl);
+                            List<FeedFetchResult> feeds = mapper.fetchFeeds(response, Map.of());
+                            latencies.add(System.nanoTime() - start);
+                            boolean failed = feeds.isEmpty() || feeds.stream().anyMatch(FeedFetchResult::isFailed);
+                            result.statuses.computeIfAbsent(failed ? 503 : 200, code -> new AtomicLong()).incrementAndGet();
+                        } catch (Exception e) {
+                            result.errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    result.addLatencies(latencies);
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        if (users instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    private static List<String> loadEntities(String entitiesUrl) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(entitiesUrl)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Список сущностей недоступен: " + entitiesUrl + " -> " + response.statusCode());
+        }
+        int limit = Integer.getInteger("load.entitiesLimit", Integer.MAX_VALUE);
+        return response.body().lines()
+                .map(String::trim)
+                .filter(entity -> !entity.isEmpty())
+                .limit(limit)
+                .toList();
+    }
+}
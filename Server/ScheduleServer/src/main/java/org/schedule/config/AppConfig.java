@@ -1,14 +1,108 @@
 package org.schedule.config;
 
+import org.schedule.util.ConcurrencyLimitedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(
+            @Value("${app.upstream.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${app.upstream.read-timeout-ms:15000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean(name = "upstreamExecutor")
+    public Executor upstreamExecutor(
+            Environment environment,
+            @Value("${app.upstream.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.upstream.queue-capacity:200}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualExecutor("mirea-upstream-", maxConcurrency);
+        }
+        // при переполненной очереди запрос к MIREA не выполняется в потоке вызывающего сверх ограничения:
+        // ScheduleMapper считает отказ недоступностью источника, и отдаются сохраненные данные
+        return platformExecutor("mirea-upstream-", maxConcurrency, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(name = "ingestExecutor")
+    public Executor ingestExecutor(
+            Environment environment,
+            @Value("${app.ingest.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.ingest.queue-capacity:100}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualExecutor("schedule-ingest-", maxConcurrency);
+        }
+        return platformExecutor("schedule-ingest-", maxConcurrency, queueCapacity);
+    }
+
+    @Bean(name = "referenceExecutor")
+    public Executor referenceExecutor(
+            Environment environment,
+            @Value("${app.thread-pool.core-size:3}") int coreSize,
+            @Value("${app.thread-pool.max-size:5}") int maxSize,
+            @Value("${app.thread-pool.queue-capacity:100}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualExecutor("schedule-reference-", maxSize);
+        }
+        ThreadPoolTaskExecutor executor = platformExecutor("schedule-reference-", maxSize, queueCapacity);
+        executor.setCorePoolSize(coreSize);
+        return executor;
+    }
+
+    @Bean(name = "conflictExecutor")
+    public ThreadPoolTaskExecutor conflictExecutor(
+            @Value("${app.conflicts.parallelism:0}") int parallelism,
+            @Value("${app.conflicts.queue-capacity:500}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return platformExecutor("schedule-conflicts-", threads, queueCapacity);
+    }
+
+    @Bean(name = "refreshExecutor")
+    public Executor refreshExecutor(
+            Environment environment,
+            @Value("${app.schedule.freshness.refresh-concurrency:2}") int maxConcurrency,
+            @Value("${app.schedule.freshness.queue-capacity:500}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualExecutor("schedule-refresh-", maxConcurrency);
+        }
+        // фоновое обновление при переполнении отбрасывается, а не выполняется в потоке запроса
+        return platformExecutor("schedule-refresh-", maxConcurrency, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private Executor virtualExecutor(String threadNamePrefix, int maxConcurrency) {
+        return new ConcurrencyLimitedExecutor(new VirtualThreadTaskExecutor(threadNamePrefix), maxConcurrency);
+    }
+
+    private ThreadPoolTaskExecutor platformExecutor(String threadNamePrefix, int maxConcurrency, int queueCapacity) {
+        return platformExecutor(threadNamePrefix, maxConcurrency, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private ThreadPoolTaskExecutor platformExecutor(String threadNamePrefix, int maxConcurrency, int queueCapacity,
+                                                    RejectedExecutionHandler rejectedExecutionHandler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        executor.initialize();
+        return executor;
     }
-}
\ No newline at end of file
+}
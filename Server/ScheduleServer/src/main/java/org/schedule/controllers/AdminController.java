@@ -1,9 +1,21 @@
 package org.schedule.controllers;
 
+import org.schedule.mapping.ReferenceDictionary;
+import org.schedule.mapping.RoomAvailabilityIndex;
+import org.schedule.mapping.UpstreamGateway;
+import org.schedule.mapping.ScheduleConflictDetector;
+import org.schedule.reservations.RefreshResult;
+import org.schedule.reservations.ScheduleConflictService;
+import org.schedule.reservations.ScheduleFreshnessService;
+import org.schedule.reservations.ScheduleResponseCache;
+import org.schedule.reservations.ScheduleService;
 import org.schedule.scheduler.ScheduleCleanupScheduler;
+import org.schedule.scheduler.SemesterPrefetchScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,9 +29,33 @@ public class AdminController {
     private static final Logger log = LoggerFactory.getLogger(AdminController.class);
 
     private final ScheduleCleanupScheduler cleanupScheduler;
+    private final ScheduleService scheduleService;
+    private final ScheduleResponseCache responseCache;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final ScheduleConflictService conflictService;
+    private final ReferenceDictionary referenceDictionary;
+    private final SemesterPrefetchScheduler prefetchScheduler;
+    private final ScheduleFreshnessService freshnessService;
+    private final UpstreamGateway upstreamGateway;
 
-    public AdminController(ScheduleCleanupScheduler cleanupScheduler) {
+    public AdminController(ScheduleCleanupScheduler cleanupScheduler,
+                           ScheduleService scheduleService,
+                           ScheduleResponseCache responseCache,
+                           RoomAvailabilityIndex roomAvailabilityIndex,
+                           ScheduleConflictService conflictService,
+                           ReferenceDictionary referenceDictionary,
+                           SemesterPrefetchScheduler prefetchScheduler,
+                           ScheduleFreshnessService freshnessService,
+                           UpstreamGateway upstreamGateway) {
         this.cleanupScheduler = cleanupScheduler;
+        this.scheduleService = scheduleService;
+        this.responseCache = responseCache;
+        this.roomAvailabilityIndex = roomAvailabilityIndex;
+        this.conflictService = conflictService;
+        this.referenceDictionary = referenceDictionary;
+        this.prefetchScheduler = prefetchScheduler;
+        this.freshnessService = freshnessService;
+        this.upstreamGateway = upstreamGateway;
     }
 
     @PostMapping("/cleanup")
@@ -37,4 +73,47 @@ public class AdminController {
 
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/conflicts/scan")
+    public ResponseEntity<ScheduleConflictDetector.DetectionResult> scanConflicts() {
+        log.info("Получен запрос на полную проверку пересечений расписания");
+
+        return ResponseEntity.ok(conflictService.detectAll());
+    }
+
+    @PostMapping("/prefetch")
+    public ResponseEntity<Map<String, Object>> startPrefetch() {
+        log.info("Получен запрос на прогрев текущего семестра");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("started", prefetchScheduler.startAsync());
+        response.put("progress", prefetchScheduler.getStats());
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("ingest", scheduleService.getIngestStats());
+        response.put("responseCache", responseCache.getStats());
+        response.put("roomAvailability", roomAvailabilityIndex.getStats());
+        response.put("referenceDictionary", referenceDictionary.getStats());
+        response.put("semesterPrefetch", prefetchScheduler.getStats());
+        response.put("freshness", freshnessService.getStats());
+        response.put("upstream", upstreamGateway.getStats());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/refresh/{entity}")
+    public ResponseEntity<RefreshResult> refreshEntity(@PathVariable("entity") String entity) {
+        log.info("Получен запрос на обновление расписания: {}", entity);
+
+        if (entity == null || entity.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(scheduleService.refreshEntity(entity));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package org.schedule.controllers;
+
+import org.schedule.entity.ScheduleConflictDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.reservations.ScheduleConflictService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/schedule/conflicts")
+public class ScheduleConflictController {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleConflictController.class);
+
+    private final ScheduleConflictService conflictService;
+
+    public ScheduleConflictController(ScheduleConflictService conflictService) {
+        this.conflictService = conflictService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScheduleConflictDto>> getConflicts(
+            @RequestParam(value = "type", required = false) EntityType type,
+            @RequestParam(value = "name", required = false) String name) {
+        log.info("GET /schedule/conflicts?type={}&name={}", type, name);
+
+        return ResponseEntity.ok(conflictService.getConflicts(type, name));
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<List<ScheduleConflictDto>> getConflictsByPath(@PathVariable("name") String name) {
+        log.info("GET /schedule/conflicts/{}", name);
+
+        if (name == null || name.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(conflictService.getConflicts(null, name));
+    }
+}
@@ -0,0 +1,60 @@
+package org.schedule.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+public class ScheduleConflictDto {
+    private String resourceType;
+    private String resourceName;
+    private String firstLessonId;
+    private String firstDiscipline;
+    private String secondLessonId;
+    private String secondDiscipline;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime overlapStart;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime overlapEnd;
+
+    public ScheduleConflictDto() {}
+
+    public ScheduleConflictDto(String resourceType, String resourceName,
+                               String firstLessonId, String firstDiscipline,
+                               String secondLessonId, String secondDiscipline,
+                               LocalDateTime overlapStart, LocalDateTime overlapEnd) {
+        this.resourceType = resourceType;
+        this.resourceName = resourceName;
+        this.firstLessonId = firstLessonId;
+        this.firstDiscipline = firstDiscipline;
+        this.secondLessonId = secondLessonId;
+        this.secondDiscipline = secondDiscipline;
+        this.overlapStart = overlapStart;
+        this.overlapEnd = overlapEnd;
+    }
+
+    public String getResourceType() { return resourceType; }
+    public void setResourceType(String resourceType) { this.resourceType = resourceType; }
+
+    public String getResourceName() { return resourceName; }
+    public void setResourceName(String resourceName) { this.resourceName = resourceName; }
+
+    public String getFirstLessonId() { return firstLessonId; }
+    public void setFirstLessonId(String firstLessonId) { this.firstLessonId = firstLessonId; }
+
+    public String getFirstDiscipline() { return firstDiscipline; }
+    public void setFirstDiscipline(String firstDiscipline) { this.firstDiscipline = firstDiscipline; }
+
+    public String getSecondLessonId() { return secondLessonId; }
+    public void setSecondLessonId(String secondLessonId) { this.secondLessonId = secondLessonId; }
+
+    public String getSecondDiscipline() { return secondDiscipline; }
+    public void setSecondDiscipline(String secondDiscipline) { this.secondDiscipline = secondDiscipline; }
+
+    public LocalDateTime getOverlapStart() { return overlapStart; }
+    public void setOverlapStart(LocalDateTime overlapStart) { this.overlapStart = overlapStart; }
+
+    public LocalDateTime getOverlapEnd() { return overlapEnd; }
+    public void setOverlapEnd(LocalDateTime overlapEnd) { this.overlapEnd = overlapEnd; }
+}
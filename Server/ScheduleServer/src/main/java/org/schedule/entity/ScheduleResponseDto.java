@@ -1,6 +1,8 @@
 package org.schedule.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.schedule.entity.forBD.LessonType;
 import org.schedule.entity.forBD.RecurrenceRule;
 
@@ -26,6 +28,13 @@ public class ScheduleResponseDto {
     private RecurrenceRule recurrence;
     private List<LocalDate> exceptions;
 
+    @JsonIgnore
+    private String lessonId;
+
+    // заполняется только в ответах на несколько сущностей: какие из запрошенных совпали с занятием
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> matchedEntities;
+
     public ScheduleResponseDto() {}
 
     public ScheduleResponseDto(String discipline, LessonType lessonType,
@@ -92,4 +101,10 @@ public class ScheduleResponseDto {
 
     public List<LocalDate> getExceptions() { return exceptions; }
     public void setExceptions(List<LocalDate> exceptions) { this.exceptions = exceptions; }
+
+    public String getLessonId() { return lessonId; }
+    public void setLessonId(String lessonId) { this.lessonId = lessonId; }
+
+    public List<String> getMatchedEntities() { return matchedEntities; }
+    public void setMatchedEntities(List<String> matchedEntities) { this.matchedEntities = matchedEntities; }
 }
\ No newline at end of file
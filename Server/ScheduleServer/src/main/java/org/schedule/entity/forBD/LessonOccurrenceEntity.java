@@ -0,0 +1,66 @@
+package org.schedule.entity.forBD;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.schedule.entity.forBD.basic.LessonEntity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "lesson_occurrences",
+        indexes = {
+                @Index(name = "idx_occurrence_date_resource", columnList = "occurrence_date, resource_type, resource_name"),
+                @Index(name = "idx_occurrence_resource_date", columnList = "resource_name, occurrence_date"),
+                @Index(name = "idx_occurrence_lesson", columnList = "lesson_id")
+        })
+public class LessonOccurrenceEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "lesson_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private LessonEntity lesson;
+
+    @Column(name = "occurrence_date", nullable = false)
+    private LocalDate occurrenceDate;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(name = "resource_type", nullable = false, length = 20)
+    private String resourceType;
+
+    @Column(name = "resource_name", nullable = false)
+    private String resourceName;
+
+    public LessonOccurrenceEntity() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LessonEntity getLesson() { return lesson; }
+    public void setLesson(LessonEntity lesson) { this.lesson = lesson; }
+
+    public LocalDate getOccurrenceDate() { return occurrenceDate; }
+    public void setOccurrenceDate(LocalDate occurrenceDate) { this.occurrenceDate = occurrenceDate; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public String getResourceType() { return resourceType; }
+    public void setResourceType(String resourceType) { this.resourceType = resourceType; }
+
+    public String getResourceName() { return resourceName; }
+    public void setResourceName(String resourceName) { this.resourceName = resourceName; }
+}
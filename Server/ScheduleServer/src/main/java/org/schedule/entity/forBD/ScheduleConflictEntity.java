@@ -0,0 +1,82 @@
+package org.schedule.entity.forBD;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "schedule_conflicts",
+        indexes = {
+                @Index(name = "idx_conflict_resource", columnList = "semester, resource_type, resource_name"),
+                @Index(name = "idx_conflict_start", columnList = "semester, overlap_start")
+        })
+public class ScheduleConflictEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resource_type", nullable = false, length = 20)
+    private String resourceType;
+
+    @Column(name = "resource_name", nullable = false)
+    private String resourceName;
+
+    @Column(name = "semester", nullable = false, length = 20)
+    private String semester;
+
+    @Column(name = "first_lesson_id", nullable = false)
+    private String firstLessonId;
+
+    @Column(name = "first_discipline")
+    private String firstDiscipline;
+
+    @Column(name = "second_lesson_id", nullable = false)
+    private String secondLessonId;
+
+    @Column(name = "second_discipline")
+    private String secondDiscipline;
+
+    @Column(name = "overlap_start", nullable = false)
+    private LocalDateTime overlapStart;
+
+    @Column(name = "overlap_end", nullable = false)
+    private LocalDateTime overlapEnd;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    public ScheduleConflictEntity() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getResourceType() { return resourceType; }
+    public void setResourceType(String resourceType) { this.resourceType = resourceType; }
+
+    public String getResourceName() { return resourceName; }
+    public void setResourceName(String resourceName) { this.resourceName = resourceName; }
+
+    public String getSemester() { return semester; }
+    public void setSemester(String semester) { this.semester = semester; }
+
+    public String getFirstLessonId() { return firstLessonId; }
+    public void setFirstLessonId(String firstLessonId) { this.firstLessonId = firstLessonId; }
+
+    public String getFirstDiscipline() { return firstDiscipline; }
+    public void setFirstDiscipline(String firstDiscipline) { this.firstDiscipline = firstDiscipline; }
+
+    public String getSecondLessonId() { return secondLessonId; }
+    public void setSecondLessonId(String secondLessonId) { this.secondLessonId = secondLessonId; }
+
+    public String getSecondDiscipline() { return secondDiscipline; }
+    public void setSecondDiscipline(String secondDiscipline) { this.secondDiscipline = secondDiscipline; }
+
+    public LocalDateTime getOverlapStart() { return overlapStart; }
+    public void setOverlapStart(LocalDateTime overlapStart) { this.overlapStart = overlapStart; }
+
+    public LocalDateTime getOverlapEnd() { return overlapEnd; }
+    public void setOverlapEnd(LocalDateTime overlapEnd) { this.overlapEnd = overlapEnd; }
+
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
+}
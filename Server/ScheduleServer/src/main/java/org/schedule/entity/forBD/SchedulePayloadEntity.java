@@ -0,0 +1,97 @@
+package org.schedule.entity.forBD;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "schedule_payloads",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"entity_name", "semester"})
+        })
+public class SchedulePayloadEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "entity_name", nullable = false)
+    private String entityName;
+
+    @Column(name = "semester", nullable = false, length = 20)
+    private String semester;
+
+    @Column(name = "etag", nullable = false, length = 80)
+    private String etag;
+
+    @Column(name = "json_body", nullable = false, columnDefinition = "bytea")
+    private byte[] jsonBody;
+
+    @Column(name = "gzip_body", nullable = false, columnDefinition = "bytea")
+    private byte[] gzipBody;
+
+    // NULL только у записей, собранных до появления бинарного формата; такие пересобираются при чтении
+    @Column(name = "binary_etag", length = 80)
+    private String binaryEtag;
+
+    @Column(name = "binary_body", columnDefinition = "bytea")
+    private byte[] binaryBody;
+
+    @Column(name = "lesson_count", nullable = false)
+    private Integer lessonCount;
+
+    @Column(name = "built_at", nullable = false)
+    private LocalDateTime builtAt;
+
+    public SchedulePayloadEntity() {}
+
+    public SchedulePayloadEntity(String entityType, String entityName, String semester, String etag,
+                                 byte[] jsonBody, byte[] gzipBody, String binaryEtag, byte[] binaryBody,
+                                 Integer lessonCount) {
+        this.entityType = entityType;
+        this.entityName = entityName;
+        this.semester = semester;
+        this.etag = etag;
+        this.jsonBody = jsonBody;
+        this.gzipBody = gzipBody;
+        this.binaryEtag = binaryEtag;
+        this.binaryBody = binaryBody;
+        this.lessonCount = lessonCount;
+        this.builtAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+
+    public String getEntityName() { return entityName; }
+    public void setEntityName(String entityName) { this.entityName = entityName; }
+
+    public String getSemester() { return semester; }
+    public void setSemester(String semester) { this.semester = semester; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+
+    public byte[] getJsonBody() { return jsonBody; }
+    public void setJsonBody(byte[] jsonBody) { this.jsonBody = jsonBody; }
+
+    public byte[] getGzipBody() { return gzipBody; }
+    public void setGzipBody(byte[] gzipBody) { this.gzipBody = gzipBody; }
+
+    public String getBinaryEtag() { return binaryEtag; }
+    public void setBinaryEtag(String binaryEtag) { this.binaryEtag = binaryEtag; }
+
+    public byte[] getBinaryBody() { return binaryBody; }
+    public void setBinaryBody(byte[] binaryBody) { this.binaryBody = binaryBody; }
+
+    public Integer getLessonCount() { return lessonCount; }
+    public void setLessonCount(Integer lessonCount) { this.lessonCount = lessonCount; }
+
+    public LocalDateTime getBuiltAt() { return builtAt; }
+    public void setBuiltAt(LocalDateTime builtAt) { this.builtAt = builtAt; }
+}
@@ -0,0 +1,69 @@
+package org.schedule.entity.forBD;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upstream_feed_state",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"schedule_id", "schedule_target"})
+        })
+public class UpstreamFeedStateEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "schedule_id", nullable = false)
+    private Long scheduleId;
+
+    @Column(name = "schedule_target", nullable = false)
+    private Integer scheduleTarget;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "last_checked", nullable = false)
+    private LocalDateTime lastChecked;
+
+    @Column(name = "last_changed")
+    private LocalDateTime lastChanged;
+
+    public UpstreamFeedStateEntity() {}
+
+    public UpstreamFeedStateEntity(Long scheduleId, Integer scheduleTarget) {
+        this.scheduleId = scheduleId;
+        this.scheduleTarget = scheduleTarget;
+        this.lastChecked = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getScheduleId() { return scheduleId; }
+    public void setScheduleId(Long scheduleId) { this.scheduleId = scheduleId; }
+
+    public Integer getScheduleTarget() { return scheduleTarget; }
+    public void setScheduleTarget(Integer scheduleTarget) { this.scheduleTarget = scheduleTarget; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+
+    public String getLastModified() { return lastModified; }
+    public void setLastModified(String lastModified) { this.lastModified = lastModified; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public LocalDateTime getLastChecked() { return lastChecked; }
+    public void setLastChecked(LocalDateTime lastChecked) { this.lastChecked = lastChecked; }
+
+    public LocalDateTime getLastChanged() { return lastChanged; }
+    public void setLastChanged(LocalDateTime lastChanged) { this.lastChanged = lastChanged; }
+}
@@ -13,7 +13,10 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "lessons")
+@Table(name = "lessons",
+        indexes = {
+                @Index(name = "uk_lessons_lesson_key", columnList = "lesson_key", unique = true)
+        })
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
@@ -22,6 +25,9 @@ public class LessonEntity {
     @GeneratedValue(strategy = GenerationType.UUID)
     private String  id;
 
+    @Column(name = "lesson_key", length = 32)
+    private String lessonKey;
+
     @Column(name = "discipline", nullable = false)
     private String discipline;
 
@@ -50,11 +56,16 @@ public class LessonEntity {
     @Column(name = "semester", nullable = false)
     private String semester;
 
+    // пишет только LessonOccurrenceIndex через JDBC
+    @Column(name = "occurrences_indexed_at", insertable = false, updatable = false)
+    private LocalDateTime occurrencesIndexedAt;
+
     @ManyToMany
     @JoinTable(
             name = "lesson_group",
             joinColumns = @JoinColumn(name = "lesson_id"),
-            inverseJoinColumns = @JoinColumn(name = "group_id")
+            inverseJoinColumns = @JoinColumn(name = "group_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_lesson_group", columnNames = {"lesson_id", "group_id"})
     )
     @ToString.Exclude
     @JsonIgnore
@@ -64,7 +75,8 @@ public class LessonEntity {
     @JoinTable(
             name = "lesson_teacher",
             joinColumns = @JoinColumn(name = "lesson_id"),
-            inverseJoinColumns = @JoinColumn(name = "teacher_id")
+            inverseJoinColumns = @JoinColumn(name = "teacher_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_lesson_teacher", columnNames = {"lesson_id", "teacher_id"})
     )
     @ToString.Exclude
     @JsonIgnore
@@ -74,7 +86,8 @@ public class LessonEntity {
     @JoinTable(
             name = "lesson_room",
             joinColumns = @JoinColumn(name = "lesson_id"),
-            inverseJoinColumns = @JoinColumn(name = "room_id")
+            inverseJoinColumns = @JoinColumn(name = "room_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_lesson_room", columnNames = {"lesson_id", "room_id"})
     )
     @ToString.Exclude
     @JsonIgnore
@@ -84,7 +97,9 @@ public class LessonEntity {
     private RecurrenceRule recurrence;
 
     @ElementCollection
-    @CollectionTable(name = "lesson_exceptions", joinColumns = @JoinColumn(name = "lesson_id"))
+    @CollectionTable(name = "lesson_exceptions", joinColumns = @JoinColumn(name = "lesson_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_lesson_exceptions",
+                    columnNames = {"lesson_id", "exception_date"}))
     @Column(name = "exception_date")
     private List<LocalDate> exceptions = new ArrayList<>();
 
@@ -146,6 +161,14 @@ public class LessonEntity {
         this.id = id;
     }
 
+    public String getLessonKey() {
+        return lessonKey;
+    }
+
+    public void setLessonKey(String lessonKey) {
+        this.lessonKey = lessonKey;
+    }
+
     public String getDiscipline() {
         return discipline;
     }
@@ -229,4 +252,6 @@ public class LessonEntity {
     public String getSemester() { return semester; }
     public void setSemester(String semester) { this.semester = semester; }
 
+    public LocalDateTime getOccurrencesIndexedAt() { return occurrencesIndexedAt; }
+
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.schedule.entity.schedule;
+
+import org.schedule.entity.apidata.ResponseDto;
+import org.schedule.entity.forBD.basic.LessonEntity;
+
+import java.util.List;
+
+public class FeedFetchResult {
+    public enum Status {
+        CHANGED,
+        NOT_MODIFIED,
+        UNCHANGED,
+        FAILED
+    }
+
+    private final ResponseDto source;
+    private final Status status;
+    private final List<LessonEntity> lessons;
+    private final String etag;
+    private final String lastModified;
+    private final String contentHash;
+
+    public FeedFetchResult(ResponseDto source, Status status, List<LessonEntity> lessons,
+                           String etag, String lastModified, String contentHash) {
+        this.source = source;
+        this.status = status;
+        this.lessons = lessons != null ? lessons : List.of();
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+    }
+
+    public static FeedFetchResult failed(ResponseDto source) {
+        return new FeedFetchResult(source, Status.FAILED, List.of(), null, null, null);
+    }
+
+    public ResponseDto getSource() { return source; }
+    public Status getStatus() { return status; }
+    public List<LessonEntity> getLessons() { return lessons; }
+    public String getEtag() { return etag; }
+    public String getLastModified() { return lastModified; }
+    public String getContentHash() { return contentHash; }
+
+    public boolean isChanged() { return status == Status.CHANGED; }
+    public boolean isFailed() { return status == Status.FAILED; }
+
+    @Override
+    public String toString() {
+        return "FeedFetchResult{" +
+                "source=" + source +
+                ", status=" + status +
+                ", lessons=" + lessons.size() +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package org.schedule.errors;
+
+import org.springframework.web.client.RestClientException;
+
+public class UpstreamUnavailableException extends RestClientException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,68 @@
+package org.schedule.events;
+
+import org.schedule.entity.forBD.basic.GroupEntity;
+import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.entity.forBD.basic.RoomEntity;
+import org.schedule.entity.forBD.basic.TeacherEntity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+public class ScheduleChangedEvent {
+
+    private final Set<String> entityNames;
+    private final boolean allEntities;
+
+    private ScheduleChangedEvent(Set<String> entityNames, boolean allEntities) {
+        this.entityNames = entityNames;
+        this.allEntities = allEntities;
+    }
+
+    public static ScheduleChangedEvent all() {
+        return new ScheduleChangedEvent(Collections.emptySet(), true);
+    }
+
+    public static ScheduleChangedEvent forLessons(Collection<LessonEntity> lessons, String... extraNames) {
+        Set<String> names = new HashSet<>();
+        for (String name : extraNames) {
+            if (name != null) {
+                names.add(name.trim());
+            }
+        }
+
+        for (LessonEntity lesson : lessons) {
+            if (lesson.getGroups() != null) {
+                lesson.getGroups().stream()
+                        .filter(Objects::nonNull)
+                        .map(GroupEntity::getGroupName)
+                        .forEach(names::add);
+            }
+            if (lesson.getTeachers() != null) {
+                lesson.getTeachers().stream()
+                        .filter(Objects::nonNull)
+                        .map(TeacherEntity::getFullName)
+                        .forEach(names::add);
+            }
+            if (lesson.getRooms() != null) {
+                lesson.getRooms().stream()
+                        .filter(Objects::nonNull)
+                        .map(RoomEntity::getRoomName)
+                        .forEach(names::add);
+            }
+        }
+
+        names.remove(null);
+        return new ScheduleChangedEvent(names, false);
+    }
+
+    public Set<String> getEntityNames() { return Collections.unmodifiableSet(entityNames); }
+    public boolean isAllEntities() { return allEntities; }
+
+    @Override
+    public String toString() {
+        return allEntities ? "ScheduleChangedEvent{all}" : "ScheduleChangedEvent{" + entityNames + "}";
+    }
+}
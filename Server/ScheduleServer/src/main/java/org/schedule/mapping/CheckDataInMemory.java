@@ -11,8 +11,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class CheckDataInMemory {
@@ -20,11 +28,14 @@ public class CheckDataInMemory {
     private final RoomRepository roomRepository;
     private final GroupRepository groupRepository;
     private final TeacherRepository teacherRepository;
+    private final ReferenceDictionary referenceDictionary;
 
-    public CheckDataInMemory(RoomRepository roomRepository, GroupRepository groupRepository, TeacherRepository teacherRepository) {
+    public CheckDataInMemory(RoomRepository roomRepository, GroupRepository groupRepository, TeacherRepository teacherRepository,
+                             ReferenceDictionary referenceDictionary) {
         this.roomRepository = roomRepository;
         this.groupRepository = groupRepository;
         this.teacherRepository = teacherRepository;
+        this.referenceDictionary = referenceDictionary;
     }
 
     public EntityCheckResult checkEntity(String entityString) {
@@ -50,6 +61,73 @@ public class CheckDataInMemory {
         return result;
     }
 
+    public Map<String, EntityCheckResult> checkEntities(Collection<String> entityStrings) {
+        log.debug("Вход в checkEntities, строк: {}", entityStrings.size());
+
+        Map<String, EntityType> types = new LinkedHashMap<>();
+        Map<EntityType, Set<String>> namesByType = new EnumMap<>(EntityType.class);
+        for (String entityString : entityStrings) {
+            if (entityString == null || entityString.trim().isEmpty()) {
+                continue;
+            }
+            EntityType entityType = determineEntityType(entityString.trim());
+            types.put(entityString, entityType);
+            if (entityType != null) {
+                namesByType.computeIfAbsent(entityType, type -> new HashSet<>()).add(entityString.trim());
+            } else {
+                log.warn("Не удалось определить тип сущности для: '{}'", entityString.trim());
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        namesByType.forEach((entityType, names) -> existing.addAll(findExistingNames(entityType, names)));
+
+        Map<String, EntityCheckResult> results = new LinkedHashMap<>();
+        types.forEach((entityString, entityType) -> {
+            String cleanName = entityString.trim();
+            results.put(entityString, entityType == null
+                    ? new EntityCheckResult(null, null, false)
+                    : new EntityCheckResult(entityType, cleanName, existing.contains(cleanName)));
+        });
+
+        log.debug("Выход из checkEntities, проверено: {}, найдено в БД: {}", results.size(), existing.size());
+        return results;
+    }
+
+    private Set<String> findExistingNames(EntityType entityType, Set<String> names) {
+        if (referenceDictionary.isLoaded()) {
+            return referenceDictionary.findAll(entityType, names).entrySet().stream()
+                    .filter(entry -> entry.getValue().getIdFromApi() != null)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+        }
+
+        try {
+            switch (entityType) {
+                case GROUP:
+                    return groupRepository.findByGroupNameIn(names).stream()
+                            .filter(group -> group.getIdFromApi() != null)
+                            .map(GroupEntity::getGroupName)
+                            .collect(Collectors.toSet());
+                case TEACHER:
+                    return teacherRepository.findByFullNameIn(names).stream()
+                            .filter(teacher -> teacher.getIdFromApi() != null)
+                            .map(TeacherEntity::getFullName)
+                            .collect(Collectors.toSet());
+                case ROOM:
+                    return roomRepository.findByRoomNamesIn(new ArrayList<>(names)).stream()
+                            .filter(room -> room.getIdFromApi() != null)
+                            .map(RoomEntity::getRoomName)
+                            .collect(Collectors.toSet());
+                default:
+                    return Set.of();
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при пакетной проверке сущностей {} в БД", entityType, e);
+            return Set.of();
+        }
+    }
+
     private EntityType determineEntityType(String entityName) {
         if (entityName == null) return null;
 
@@ -78,6 +156,11 @@ public class CheckDataInMemory {
     }
 
     private boolean checkDatabaseExistence(EntityType entityType, String entityName) {
+        if (referenceDictionary.isLoaded()) {
+            ReferenceDictionary.Entry entry = referenceDictionary.find(entityType, entityName);
+            return entry != null && entry.getIdFromApi() != null;
+        }
+
         try {
             boolean result;
 
@@ -0,0 +1,74 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.repository.LessonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class LessonKeyBackfill {
+    private static final Logger log = LoggerFactory.getLogger(LessonKeyBackfill.class);
+
+    private final LessonRepository lessonRepository;
+    private final LessonUpsertWriter upsertWriter;
+
+    public LessonKeyBackfill(LessonRepository lessonRepository, LessonUpsertWriter upsertWriter) {
+        this.lessonRepository = lessonRepository;
+        this.upsertWriter = upsertWriter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillLessonKeys() {
+        try {
+            List<LessonEntity> lessonsWithoutKey = lessonRepository.findByLessonKeyIsNull();
+            if (lessonsWithoutKey.isEmpty()) {
+                return;
+            }
+
+            log.info("Заполнение lesson_key для {} занятий", lessonsWithoutKey.size());
+
+            List<String> keys = new ArrayList<>();
+            for (LessonEntity lesson : lessonsWithoutKey) {
+                keys.add(LessonKeys.naturalKeyHash(lesson));
+            }
+
+            // ключ -> id занятия, которое остается; дубликаты делятся по id, а не по equals сущности.
+            // Ключ ставится только оставшимся: Hibernate выполняет UPDATE раньше DELETE,
+            // и дубликат с тем же ключом нарушил бы уникальность до своего удаления
+            Map<String, String> keptIds = new HashMap<>(upsertWriter.findIdsByKeys(keys));
+            List<LessonEntity> keptLessons = new ArrayList<>();
+            List<LessonEntity> duplicates = new ArrayList<>();
+
+            for (int i = 0; i < lessonsWithoutKey.size(); i++) {
+                LessonEntity lesson = lessonsWithoutKey.get(i);
+                String keptId = keptIds.putIfAbsent(keys.get(i), lesson.getId());
+                if (keptId == null) {
+                    lesson.setLessonKey(keys.get(i));
+                    keptLessons.add(lesson);
+                } else {
+                    duplicates.add(lesson);
+                    log.info("Удаляется дубликат занятия {}, объединен с {}", lesson.getId(), keptId);
+                }
+            }
+
+            lessonRepository.deleteAll(duplicates);
+            lessonRepository.saveAll(keptLessons);
+
+            log.info("lesson_key заполнен для {} занятий, удалено дубликатов: {}",
+                    keptLessons.size(), duplicates.size());
+
+        } catch (Exception e) {
+            log.error("Ошибка при заполнении lesson_key", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.forBD.basic.LessonEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Collectors;
+
+public final class LessonKeys {
+
+    private LessonKeys() {}
+
+    public static String deduplicationKey(LessonEntity lesson) {
+        return String.format("%s|%s|%s|%s|%s|%s",
+                lesson.getDiscipline() != null ? lesson.getDiscipline().trim().toLowerCase() : "",
+                lesson.getLessonType() != null ? lesson.getLessonType().name() : "",
+                lesson.getStartTime() != null ? lesson.getStartTime().toString() : "",
+                lesson.getEndTime() != null ? lesson.getEndTime().toString() : "",
+                normalizeGroups(lesson.getGroupsSummary()),
+                lesson.getTeacher() != null ? lesson.getTeacher().trim().toLowerCase() : "");
+    }
+
+    public static String normalizeGroups(String groupsSummary) {
+        if (groupsSummary == null || groupsSummary.trim().isEmpty()) {
+            return "";
+        }
+
+        return Arrays.stream(groupsSummary.split(",\\s*"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .sorted()
+                .collect(Collectors.joining(", "))
+                .toLowerCase();
+    }
+
+    // 128-битный ключ (MD5, 32 hex-символа) для уникальной колонки lessons.lesson_key
+    public static String naturalKeyHash(LessonEntity lesson) {
+        String naturalKey = deduplicationKey(lesson) + "|" +
+                (lesson.getSemester() != null ? lesson.getSemester() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            return HexFormat.of().formatHex(digest.digest(naturalKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.schedule.mapping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class LessonOccurrenceBackfill {
+    private static final Logger log = LoggerFactory.getLogger(LessonOccurrenceBackfill.class);
+
+    private final LessonOccurrenceIndex occurrenceIndex;
+
+    public LessonOccurrenceBackfill(LessonOccurrenceIndex occurrenceIndex) {
+        this.occurrenceIndex = occurrenceIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOccurrences() {
+        try {
+            int rows = occurrenceIndex.backfillMissing();
+            if (rows > 0) {
+                log.info("Заполнен индекс дат занятий: {} строк", rows);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при заполнении индекса дат занятий", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.util.RecurrenceExpander;
+import org.schedule.util.SemesterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Component
+public class LessonOccurrenceIndex {
+    private static final Logger log = LoggerFactory.getLogger(LessonOccurrenceIndex.class);
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private static final String DELETE_BY_LESSONS_SQL =
+            "DELETE FROM lesson_occurrences WHERE lesson_id IN (:ids)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO lesson_occurrences (lesson_id, occurrence_date, start_time, end_time, resource_type, resource_name) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_BY_RESOURCE_SQL =
+            "SELECT DISTINCT lesson_id, occurrence_date, start_time, end_time FROM lesson_occurrences " +
+            "WHERE resource_type = :type AND resource_name = :name AND occurrence_date BETWEEN :from AND :to";
+
+    private static final String MARK_INDEXED_SQL =
+            "UPDATE lessons SET occurrences_indexed_at = :indexedAt WHERE id IN (:ids)";
+
+    // отметка ставится и занятиям без дат, поэтому они не разворачиваются заново при каждом старте
+    private static final String SELECT_NOT_INDEXED_LESSONS_SQL =
+            "SELECT id FROM lessons WHERE occurrences_indexed_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ScheduleProjectionReader projectionReader;
+
+    public LessonOccurrenceIndex(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 ScheduleProjectionReader projectionReader) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.projectionReader = projectionReader;
+    }
+
+    public int regenerate(Collection<String> lessonIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(lessonIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp indexedAt = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            namedJdbcTemplate.update(DELETE_BY_LESSONS_SQL, new MapSqlParameterSource("ids", chunk));
+            namedJdbcTemplate.update(MARK_INDEXED_SQL, new MapSqlParameterSource("ids", chunk)
+                    .addValue("indexedAt", indexedAt));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        projectionReader.readByLessonIds(ids).forEach((lessonId, lesson) -> addRows(rows, lessonId, lesson));
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+
+        log.debug("Пересобраны даты для {} занятий: {} строк индекса", ids.size(), rows.size());
+        return rows.size();
+    }
+
+    public List<Occurrence> findByResource(EntityType resourceType, String resourceName, LocalDate from, LocalDate to) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", resourceType.name())
+                .addValue("name", resourceName)
+                .addValue("from", Date.valueOf(from))
+                .addValue("to", Date.valueOf(to));
+
+        return namedJdbcTemplate.query(SELECT_BY_RESOURCE_SQL, params, (rs, rowNum) -> new Occurrence(
+                rs.getString("lesson_id"),
+                rs.getDate("occurrence_date").toLocalDate(),
+                rs.getTimestamp("start_time").toLocalDateTime(),
+                rs.getTimestamp("end_time").toLocalDateTime()));
+    }
+
+    public int backfillMissing() {
+        List<String> ids = jdbcTemplate.queryForList(SELECT_NOT_INDEXED_LESSONS_SQL, String.class);
+        int total = 0;
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            total += regenerate(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        return total;
+    }
+
+    private void addRows(List<Object[]> rows, String lessonId, ScheduleResponseDto lesson) {
+        if (lesson.getStartTime() == null || lesson.getEndTime() == null) {
+            return;
+        }
+
+        LocalDate firstDate = lesson.getStartTime().toLocalDate();
+        LocalDate lastDate = SemesterUtils.getSemesterEndDate(SemesterUtils.getCurrentSemester(firstDate));
+        Duration duration = Duration.between(lesson.getStartTime(), lesson.getEndTime());
+
+        List<LocalDate> dates;
+        try {
+            dates = RecurrenceExpander.occurrenceDates(firstDate, lesson.getRecurrence(),
+                    lesson.getExceptions(), firstDate, lastDate);
+        } catch (IllegalArgumentException e) {
+            // правило не разворачивается: в индекс попадает только первое занятие
+            log.warn("Занятие {}: {}, индексируется только {}", lessonId, e.getMessage(), firstDate);
+            dates = RecurrenceExpander.occurrenceDates(firstDate, null, lesson.getExceptions(), firstDate, lastDate);
+        }
+
+        for (LocalDate date : dates) {
+            LocalDateTime start = date.atTime(lesson.getStartTime().toLocalTime());
+            Timestamp startTs = Timestamp.valueOf(start);
+            Timestamp endTs = Timestamp.valueOf(start.plus(duration));
+            Date day = Date.valueOf(date);
+
+            addResourceRows(rows, lessonId, day, startTs, endTs, EntityType.GROUP, lesson.getGroups());
+            addResourceRows(rows, lessonId, day, startTs, endTs, EntityType.TEACHER, lesson.getTeachers());
+            addResourceRows(rows, lessonId, day, startTs, endTs, EntityType.ROOM, lesson.getRooms());
+        }
+    }
+
+    private void addResourceRows(List<Object[]> rows, String lessonId, Date day, Timestamp start, Timestamp end,
+                                 EntityType resourceType, List<String> names) {
+        if (names == null) {
+            return;
+        }
+        for (String name : new LinkedHashSet<>(names)) {
+            rows.add(new Object[]{lessonId, day, start, end, resourceType.name(), name});
+        }
+    }
+
+    public record Occurrence(String lessonId, LocalDate date, LocalDateTime startTime, LocalDateTime endTime) {
+    }
+}
@@ -0,0 +1,272 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.forBD.RecurrenceRule;
+import org.schedule.entity.forBD.basic.GroupEntity;
+import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.entity.forBD.basic.RoomEntity;
+import org.schedule.entity.forBD.basic.TeacherEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+@Component
+public class LessonUpsertWriter {
+    private static final Logger log = LoggerFactory.getLogger(LessonUpsertWriter.class);
+    private static final int KEY_LOOKUP_CHUNK_SIZE = 1000;
+
+    // Аудитория, описание и повторение не входят в ключ и обновляются у существующей строки;
+    // строка без изменений не переписывается, и счетчик 0 отличает ее от обновленной
+    private static final String UPSERT_LESSON_SQL =
+            "INSERT INTO lessons (id, lesson_key, discipline, lesson_type, start_time, end_time, room, teacher, " +
+            "groups_summary, description, semester, recurrence_frequency, recurrence_interval, recurrence_until) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (lesson_key) DO UPDATE SET discipline = EXCLUDED.discipline, room = EXCLUDED.room, " +
+            "teacher = EXCLUDED.teacher, groups_summary = EXCLUDED.groups_summary, " +
+            "description = EXCLUDED.description, recurrence_frequency = EXCLUDED.recurrence_frequency, " +
+            "recurrence_interval = EXCLUDED.recurrence_interval, recurrence_until = EXCLUDED.recurrence_until " +
+            "WHERE (lessons.discipline, lessons.room, lessons.teacher, lessons.groups_summary, lessons.description, " +
+            "lessons.recurrence_frequency, lessons.recurrence_interval, lessons.recurrence_until) IS DISTINCT FROM " +
+            "(EXCLUDED.discipline, EXCLUDED.room, EXCLUDED.teacher, EXCLUDED.groups_summary, EXCLUDED.description, " +
+            "EXCLUDED.recurrence_frequency, EXCLUDED.recurrence_interval, EXCLUDED.recurrence_until)";
+
+    private static final String DELETE_STALE_ROOMS_SQL =
+            "DELETE FROM lesson_room WHERE lesson_id = ? AND NOT (room_id = ANY (?))";
+    private static final String DELETE_STALE_EXCEPTIONS_SQL =
+            "DELETE FROM lesson_exceptions WHERE lesson_id = ? AND NOT (exception_date = ANY (?))";
+
+    private static final String SELECT_IDS_BY_KEYS_SQL =
+            "SELECT lesson_key, id FROM lessons WHERE lesson_key IN (:keys)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public LessonUpsertWriter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public UpsertResult upsertLessons(List<LessonEntity> lessons) {
+        if (lessons.isEmpty()) {
+            return new UpsertResult(List.of(), List.of(), List.of());
+        }
+
+        Map<String, String> generatedIds = new HashMap<>();
+        for (LessonEntity lesson : lessons) {
+            String generatedId = UUID.randomUUID().toString();
+            lesson.setId(generatedId);
+            generatedIds.put(lesson.getLessonKey(), generatedId);
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPSERT_LESSON_SQL, lessons, lessons.size(), this::bindLesson);
+        int[] lessonCounts = counts.length > 0 ? counts[0] : new int[0];
+
+        Map<String, String> storedIds = findIdsByKeys(generatedIds.keySet());
+
+        List<LessonEntity> inserted = new ArrayList<>();
+        List<LessonEntity> existing = new ArrayList<>();
+        Set<String> changedIds = new HashSet<>();
+        for (int i = 0; i < lessons.size(); i++) {
+            LessonEntity lesson = lessons.get(i);
+            String storedId = storedIds.get(lesson.getLessonKey());
+            if (storedId == null) {
+                log.warn("Занятие с ключом {} не найдено после вставки", lesson.getLessonKey());
+                continue;
+            }
+            if (storedId.equals(generatedIds.get(lesson.getLessonKey()))) {
+                inserted.add(lesson);
+            } else {
+                lesson.setId(storedId);
+                existing.add(lesson);
+                if (i < lessonCounts.length && applied(lessonCounts[i])) {
+                    changedIds.add(storedId);
+                }
+            }
+        }
+
+        // у существующих занятий убираются аудитории и исключения, которых больше нет в ленте;
+        // недостающие связи досоздаются для всех занятий
+        changedIds.addAll(deleteStaleRooms(existing));
+        changedIds.addAll(deleteStaleExceptions(existing));
+        Set<String> linkedIds = insertRelations(lessons.stream()
+                .filter(lesson -> storedIds.containsKey(lesson.getLessonKey()))
+                .toList());
+
+        List<LessonEntity> updated = new ArrayList<>();
+        for (LessonEntity lesson : existing) {
+            if (changedIds.contains(lesson.getId()) || linkedIds.contains(lesson.getId())) {
+                updated.add(lesson);
+            }
+        }
+
+        log.debug("Upsert занятий: вставлено {}, обновлено {}, уже существовало {}",
+                inserted.size(), updated.size(), existing.size());
+        return new UpsertResult(inserted, updated, existing);
+    }
+
+    public Map<String, String> findIdsByKeys(Collection<String> lessonKeys) {
+        Map<String, String> result = new HashMap<>();
+        List<String> keys = new ArrayList<>(lessonKeys);
+
+        for (int from = 0; from < keys.size(); from += KEY_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + KEY_LOOKUP_CHUNK_SIZE, keys.size()));
+            namedJdbcTemplate.query(SELECT_IDS_BY_KEYS_SQL,
+                    new MapSqlParameterSource("keys", chunk),
+                    rs -> {
+                        result.put(rs.getString("lesson_key"), rs.getString("id"));
+                    });
+        }
+        return result;
+    }
+
+    private Set<String> insertRelations(List<LessonEntity> lessons) {
+        List<Object[]> groupRows = new ArrayList<>();
+        List<Object[]> teacherRows = new ArrayList<>();
+        List<Object[]> roomRows = new ArrayList<>();
+        List<Object[]> exceptionRows = new ArrayList<>();
+
+        for (LessonEntity lesson : lessons) {
+            if (lesson.getGroups() != null) {
+                for (GroupEntity group : lesson.getGroups()) {
+                    if (group.getId() != null) groupRows.add(new Object[]{lesson.getId(), group.getId()});
+                }
+            }
+            if (lesson.getTeachers() != null) {
+                for (TeacherEntity teacher : lesson.getTeachers()) {
+                    if (teacher.getId() != null) teacherRows.add(new Object[]{lesson.getId(), teacher.getId()});
+                }
+            }
+            if (lesson.getRooms() != null) {
+                for (RoomEntity room : lesson.getRooms()) {
+                    if (room.getId() != null) roomRows.add(new Object[]{lesson.getId(), room.getId()});
+                }
+            }
+            if (lesson.getExceptions() != null) {
+                for (LocalDate exceptionDate : lesson.getExceptions()) {
+                    exceptionRows.add(new Object[]{lesson.getId(), exceptionDate});
+                }
+            }
+        }
+
+        Set<String> linkedIds = new HashSet<>();
+        linkedIds.addAll(batchUpdate(
+                "INSERT INTO lesson_group (lesson_id, group_id) VALUES (?, ?) ON CONFLICT DO NOTHING", groupRows));
+        linkedIds.addAll(batchUpdate(
+                "INSERT INTO lesson_teacher (lesson_id, teacher_id) VALUES (?, ?) ON CONFLICT DO NOTHING", teacherRows));
+        linkedIds.addAll(batchUpdate(
+                "INSERT INTO lesson_room (lesson_id, room_id) VALUES (?, ?) ON CONFLICT DO NOTHING", roomRows));
+        linkedIds.addAll(batchUpdate(
+                "INSERT INTO lesson_exceptions (lesson_id, exception_date) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                exceptionRows));
+        return linkedIds;
+    }
+
+    private Set<String> deleteStaleRooms(List<LessonEntity> lessons) {
+        // без разобранных аудиторий (null) связи не трогаются: сравнивать не с чем
+        List<LessonEntity> withRooms = lessons.stream()
+                .filter(lesson -> lesson.getRooms() != null)
+                .toList();
+        return deleteStale(DELETE_STALE_ROOMS_SQL, withRooms, "bigint", lesson -> lesson.getRooms().stream()
+                .map(RoomEntity::getId)
+                .filter(Objects::nonNull)
+                .toArray());
+    }
+
+    private Set<String> deleteStaleExceptions(List<LessonEntity> lessons) {
+        return deleteStale(DELETE_STALE_EXCEPTIONS_SQL, lessons, "date", lesson -> lesson.getExceptions() == null
+                ? new Object[0]
+                : lesson.getExceptions().stream().map(java.sql.Date::valueOf).toArray());
+    }
+
+    private Set<String> deleteStale(String sql, List<LessonEntity> lessons, String elementType,
+                                    Function<LessonEntity, Object[]> kept) {
+        if (lessons.isEmpty()) {
+            return Set.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(sql, lessons, lessons.size(), (ps, lesson) -> {
+            ps.setString(1, lesson.getId());
+            ps.setArray(2, ps.getConnection().createArrayOf(elementType, kept.apply(lesson)));
+        });
+        Set<String> changedIds = new HashSet<>();
+        for (int i = 0; i < counts[0].length; i++) {
+            if (applied(counts[0][i])) {
+                changedIds.add(lessons.get(i).getId());
+            }
+        }
+        return changedIds;
+    }
+
+    // Возвращает занятия (первый параметр строки), для которых строка действительно записана
+    private Set<String> batchUpdate(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Set.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, rows);
+        Set<String> changedIds = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (applied(counts[i])) {
+                changedIds.add((String) rows.get(i)[0]);
+            }
+        }
+        return changedIds;
+    }
+
+    private static boolean applied(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+
+    private void bindLesson(PreparedStatement ps, LessonEntity lesson) throws SQLException {
+        ps.setString(1, lesson.getId());
+        ps.setString(2, lesson.getLessonKey());
+        ps.setString(3, lesson.getDiscipline());
+        ps.setString(4, lesson.getLessonType().name());
+        ps.setObject(5, lesson.getStartTime());
+        ps.setObject(6, lesson.getEndTime());
+        ps.setString(7, lesson.getRoom());
+        ps.setString(8, lesson.getTeacher());
+        ps.setString(9, lesson.getGroupsSummary());
+        ps.setString(10, lesson.getDescription());
+        ps.setString(11, lesson.getSemester());
+
+        RecurrenceRule recurrence = lesson.getRecurrence();
+        if (recurrence != null) {
+            ps.setString(12, recurrence.getFrequency());
+            ps.setObject(13, recurrence.getInterval(), Types.INTEGER);
+            ps.setObject(14, recurrence.getUntil(), Types.TIMESTAMP);
+        } else {
+            ps.setNull(12, Types.VARCHAR);
+            ps.setNull(13, Types.INTEGER);
+            ps.setNull(14, Types.TIMESTAMP);
+        }
+    }
+
+    public static class UpsertResult {
+        private final List<LessonEntity> inserted;
+        private final List<LessonEntity> updated;
+        private final List<LessonEntity> existing;
+
+        public UpsertResult(List<LessonEntity> inserted, List<LessonEntity> updated, List<LessonEntity> existing) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.existing = existing;
+        }
+
+        public List<LessonEntity> getInserted() { return inserted; }
+        // подмножество existing: строки, у которых изменились колонки, связи или исключения
+        public List<LessonEntity> getUpdated() { return updated; }
+        public List<LessonEntity> getExisting() { return existing; }
+        public int getInsertedCount() { return inserted.size(); }
+        public int getUpdatedCount() { return updated.size(); }
+        public int getTotalCount() { return inserted.size() + existing.size(); }
+    }
+}
@@ -8,10 +8,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,46 +31,110 @@ public class ParserToLesson {
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyyMMdd");
 
-    private static final Pattern EVENT_PATTERN = Pattern.compile("BEGIN:VEVENT(.*?)END:VEVENT", Pattern.DOTALL);
+    private static final String EVENT_BEGIN = "BEGIN:VEVENT";
+    private static final String EVENT_END = "END:VEVENT";
 
-    public List<LessonEntity> parseICalendarToLessons(String data, String scheduleTitle) {
-        log.info("Вход в parseICalendarToLessons, заголовок: {}", scheduleTitle);
+    public List<LessonEntity> parseICalendarToLessons(InputStream input, Charset charset, String scheduleTitle) {
+        log.info("Вход в parseICalendarToLessons (поток), заголовок: {}", scheduleTitle);
 
-        if (data == null || data.trim().isEmpty()) {
-            throw new IllegalArgumentException("Данные для парсинга не могут быть пустыми");
+        if (input == null) {
+            throw new IllegalArgumentException("Поток для парсинга не может быть пустым");
         }
 
-        List<LessonEntity> lessons = new ArrayList<>();
-        Matcher eventMatcher = EVENT_PATTERN.matcher(data);
+        Set<LessonEntity> uniqueLessons = new LinkedHashSet<>();
+
+        try (Reader reader = new InputStreamReader(input, charset)) {
+            int eventCount = parseICalendarStream(reader, scheduleTitle, uniqueLessons::add);
+            log.info("Выход из parseICalendarToLessons, результат: {} уникальных занятий из {} событий",
+                    uniqueLessons.size(), eventCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения iCal данных", e);
+        }
+
+        return new ArrayList<>(uniqueLessons);
+    }
+
+    public int parseICalendarStream(Reader source, String scheduleTitle, Consumer<LessonEntity> consumer)
+            throws IOException {
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source
+                : new BufferedReader(source, 16 * 1024);
+
+        Map<String, String> properties = null;
+        String currentKey = null;
+        StringBuilder currentValue = new StringBuilder();
 
         int eventCount = 0;
         int skippedCount = 0;
 
-        while (eventMatcher.find()) {
-            String eventBlock = eventMatcher.group(1);
-            eventCount++;
-            try {
-                LessonEntity lesson = parseEventBlock(eventBlock, scheduleTitle);
-                if (lesson != null && isValidLesson(lesson)) {
-                    lessons.add(lesson);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+
+            char first = line.charAt(0);
+            boolean folded = first == ' ' || first == '\t';
+
+            if (properties == null) {
+                if (!folded && line.startsWith(EVENT_BEGIN)) {
+                    properties = new HashMap<>();
+                    currentKey = null;
+                }
+                continue;
+            }
+
+            if (!folded && line.startsWith(EVENT_END)) {
+                putProperty(properties, currentKey, currentValue);
+                eventCount++;
+                try {
+                    LessonEntity lesson = parseEvent(properties, scheduleTitle);
+                    if (lesson != null && isValidLesson(lesson)) {
+                        consumer.accept(lesson);
+                    } else {
+                        skippedCount++;
+                    }
+                } catch (Exception e) {
+                    log.error("Ошибка при парсинге события {}", eventCount, e);
+                }
+                properties = null;
+                currentKey = null;
+                continue;
+            }
+
+            int colonIndex = line.indexOf(':');
+            if (!folded && colonIndex >= 0) {
+                putProperty(properties, currentKey, currentValue);
+                currentKey = line.substring(0, colonIndex).trim();
+                currentValue.setLength(0);
+                currentValue.append(line, colonIndex + 1, line.length());
+            } else if (currentKey != null) {
+                // Продолжение предыдущей строки (RFC 5545 line folding)
+                if (folded) {
+                    currentValue.append(line, 1, line.length());
                 } else {
-                    skippedCount++;
+                    if (currentValue.length() > 0 && !endsWithWhitespace(currentValue)) {
+                        currentValue.append(" ");
+                    }
+                    currentValue.append(line);
                 }
-            } catch (Exception e) {
-                log.error("Ошибка при парсинге события {}", eventCount, e);
             }
         }
 
-        Set<LessonEntity> uniqueLessons = new HashSet<>(lessons);
-        log.info("Выход из parseICalendarToLessons, результат: {} уникальных занятий из {} событий",
-                uniqueLessons.size(), eventCount);
-
-        return new ArrayList<>(uniqueLessons);
+        log.debug("Потоковый разбор завершен: событий {}, пропущено {}", eventCount, skippedCount);
+        return eventCount;
     }
 
-    private LessonEntity parseEventBlock(String eventBlock, String scheduleTitle) {
-        Map<String, String> properties = extractProperties(eventBlock);
+    private void putProperty(Map<String, String> properties, String key, StringBuilder value) {
+        if (key == null) return;
 
+        String cleanedValue = cleanText(value.toString());
+        properties.put(key, cleanedValue);
+
+        if ("DESCRIPTION".equals(key)) {
+            log.debug("DESCRIPTION после очистки: {}", cleanedValue);
+        }
+    }
+
+    private LessonEntity parseEvent(Map<String, String> properties, String scheduleTitle) {
         if (isWeekEvent(properties)) {
             return null;
         }
@@ -101,54 +173,6 @@ public class ParserToLesson {
         }
     }
 
-    private Map<String, String> extractProperties(String eventBlock) {
-        Map<String, String> properties = new HashMap<>();
-
-        String[] lines = eventBlock.split("\\r?\\n");
-
-        String currentKey = null;
-        StringBuilder currentValue = new StringBuilder();
-
-        for (String line : lines) {
-            if (line.isEmpty()) continue;
-
-            if (line.contains(":") && !line.startsWith(" ")) {
-                if (currentKey != null) {
-                    String cleanedValue = cleanText(currentValue.toString());
-                    properties.put(currentKey, cleanedValue);
-                }
-
-                int colonIndex = line.indexOf(":");
-                currentKey = line.substring(0, colonIndex).trim();
-                currentValue = new StringBuilder(line.substring(colonIndex + 1));
-            } else {
-                // Продолжение предыдущей строки
-                if (currentKey != null) {
-                    if (line.startsWith(" ")) {
-                        String continuation = line.substring(1);
-                        currentValue.append(continuation);
-                    } else {
-                        if (currentValue.length() > 0 && !endsWithWhitespace(currentValue)) {
-                            currentValue.append(" ");
-                        }
-                        currentValue.append(line);
-                    }
-                }
-            }
-        }
-
-        if (currentKey != null) {
-            String cleanedValue = cleanText(currentValue.toString());
-            properties.put(currentKey, cleanedValue);
-        }
-
-        if (properties.containsKey("DESCRIPTION")) {
-            log.debug("DESCRIPTION после очистки: {}", properties.get("DESCRIPTION"));
-        }
-
-        return properties;
-    }
-
     private boolean endsWithWhitespace(StringBuilder sb) {
         if (sb.length() == 0) return false;
         char lastChar = sb.charAt(sb.length() - 1);
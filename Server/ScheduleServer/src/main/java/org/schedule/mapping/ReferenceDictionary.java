@@ -0,0 +1,139 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.forBD.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Справочник групп, преподавателей и аудиторий в памяти: имя -> id и id_from_api.
+// Таблицы небольшие и почти только дополняются, поэтому после загрузки справочник считается полным,
+// а созданные и обновленные строки попадают в него после коммита транзакции
+@Component
+public class ReferenceDictionary {
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDictionary.class);
+
+    private static final String GROUPS_SQL = "SELECT id, group_name AS name, id_from_api FROM groups ORDER BY id";
+    private static final String TEACHERS_SQL = "SELECT id, full_name AS name, id_from_api FROM teachers ORDER BY id";
+    private static final String ROOMS_SQL = "SELECT id, room_name AS name, id_from_api FROM rooms ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<EntityType, ConcurrentHashMap<String, Entry>> entries = new EnumMap<>(EntityType.class);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean loaded;
+
+    public ReferenceDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (EntityType entityType : EntityType.values()) {
+            entries.put(entityType, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Ошибка при загрузке справочника групп, преподавателей и аудиторий", e);
+        }
+    }
+
+    public void reload() {
+        long startTime = System.currentTimeMillis();
+
+        load(EntityType.GROUP, GROUPS_SQL);
+        load(EntityType.TEACHER, TEACHERS_SQL);
+        load(EntityType.ROOM, ROOMS_SQL);
+        loaded = true;
+
+        log.info("Справочник загружен за {} мс: групп {}, преподавателей {}, аудиторий {}",
+                System.currentTimeMillis() - startTime, entries.get(EntityType.GROUP).size(),
+                entries.get(EntityType.TEACHER).size(), entries.get(EntityType.ROOM).size());
+    }
+
+    private void load(EntityType entityType, String sql) {
+        Map<String, Entry> byName = entries.get(entityType);
+        jdbcTemplate.query(sql, rs -> {
+            String name = rs.getString("name");
+            if (name != null) {
+                // запись, пришедшая после коммита во время загрузки, новее прочитанной строки
+                byName.putIfAbsent(name, new Entry(rs.getLong("id"), (Long) rs.getObject("id_from_api")));
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Entry find(EntityType entityType, String name) {
+        Entry entry = name != null ? entries.get(entityType).get(name) : null;
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    public Map<String, Entry> findAll(EntityType entityType, Collection<String> names) {
+        Map<String, Entry> byName = entries.get(entityType);
+        Map<String, Entry> found = new HashMap<>();
+        for (String name : names) {
+            Entry entry = byName.get(name);
+            if (entry != null) {
+                found.put(name, entry);
+            }
+        }
+        hits.add(found.size());
+        misses.add(names.size() - found.size());
+        return found;
+    }
+
+    public void register(EntityType entityType, String name, Long id, Long idFromApi) {
+        if (name == null || id == null) {
+            return;
+        }
+
+        Entry entry = new Entry(id, idFromApi);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.get(entityType).put(name, entry);
+                }
+            });
+        } else {
+            entries.get(entityType).put(name, entry);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("groups", entries.get(EntityType.GROUP).size());
+        stats.put("teachers", entries.get(EntityType.TEACHER).size());
+        stats.put("rooms", entries.get(EntityType.ROOM).size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    public static final class Entry {
+        private final Long id;
+        private final Long idFromApi;
+
+        public Entry(Long id, Long idFromApi) {
+            this.id = id;
+            this.idFromApi = idFromApi;
+        }
+
+        public Long getId() { return id; }
+        public Long getIdFromApi() { return idFromApi; }
+    }
+}
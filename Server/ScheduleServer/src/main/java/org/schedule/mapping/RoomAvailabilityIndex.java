@@ -0,0 +1,271 @@
+package org.schedule.mapping;
+
+import org.schedule.events.ScheduleChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class RoomAvailabilityIndex {
+    private static final Logger log = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+    private static final int NAME_CHUNK_SIZE = 1000;
+
+    private static final String ALL_ROOMS_SQL = "SELECT room_name FROM rooms";
+
+    private static final String ROOMS_BY_NAMES_SQL = "SELECT room_name FROM rooms WHERE room_name IN (:names)";
+
+    private static final String ALL_ROOM_OCCURRENCES_SQL =
+            "SELECT resource_name, start_time, end_time FROM lesson_occurrences WHERE resource_type = 'ROOM'";
+
+    private static final String ROOM_OCCURRENCES_BY_NAMES_SQL =
+            ALL_ROOM_OCCURRENCES_SQL + " AND resource_name IN (:names)";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // не synchronized: перестройка ходит в БД и на виртуальных потоках закрепила бы поток-носитель
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new TreeMap<>());
+
+    public RoomAvailabilityIndex(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reloadAll();
+        } catch (Exception e) {
+            log.error("Ошибка при построении индекса занятости аудиторий", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        try {
+            if (event.isAllEntities()) {
+                reloadAll();
+            } else {
+                reloadRooms(event.getEntityNames());
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при обновлении индекса занятости аудиторий по событию {}", event, e);
+        }
+    }
+
+    public void reloadAll() {
+        reloadLock.lock();
+        try {
+            reloadAllLocked();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public void reloadRooms(Collection<String> names) {
+        reloadLock.lock();
+        try {
+            reloadRoomsLocked(names);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reloadAllLocked() {
+        long startTime = System.currentTimeMillis();
+
+        Map<String, TimelineBuilder> builders = new HashMap<>();
+        namedJdbcTemplate.query(ALL_ROOMS_SQL, Map.of(),
+                rs -> { builders.computeIfAbsent(rs.getString("room_name"), name -> new TimelineBuilder()); });
+        namedJdbcTemplate.query(ALL_ROOM_OCCURRENCES_SQL, Map.of(),
+                rs -> { addInterval(builders, rs.getString("resource_name"),
+                        rs.getTimestamp("start_time"), rs.getTimestamp("end_time")); });
+
+        TreeMap<String, RoomTimeline> loaded = new TreeMap<>();
+        builders.forEach((name, builder) -> loaded.put(name, builder.build()));
+        snapshot = new Snapshot(loaded);
+
+        log.info("Индекс занятости аудиторий построен за {} мс: {} аудиторий",
+                System.currentTimeMillis() - startTime, loaded.size());
+    }
+
+    private void reloadRoomsLocked(Collection<String> names) {
+        List<String> candidates = new ArrayList<>(new LinkedHashSet<>(names));
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<String, TimelineBuilder> builders = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += NAME_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("names",
+                    candidates.subList(from, Math.min(from + NAME_CHUNK_SIZE, candidates.size())));
+
+            namedJdbcTemplate.query(ROOMS_BY_NAMES_SQL, params,
+                    rs -> { builders.computeIfAbsent(rs.getString("room_name"), name -> new TimelineBuilder()); });
+            namedJdbcTemplate.query(ROOM_OCCURRENCES_BY_NAMES_SQL, params,
+                    rs -> { addInterval(builders, rs.getString("resource_name"),
+                            rs.getTimestamp("start_time"), rs.getTimestamp("end_time")); });
+        }
+
+        if (builders.isEmpty()) {
+            return;
+        }
+
+        TreeMap<String, RoomTimeline> updated = snapshot.toMap();
+        builders.forEach((name, builder) -> updated.put(name, builder.build()));
+        snapshot = new Snapshot(updated);
+
+        log.debug("Обновлен индекс занятости для {} аудиторий", builders.size());
+    }
+
+    public List<String> findFreeRooms(LocalDateTime from, LocalDateTime to, String building) {
+        long fromMinute = toMinutes(from);
+        long toMinute = toMinutes(to);
+        String buildingFilter = building != null && !building.isBlank() ? building.trim().toLowerCase() : null;
+
+        Snapshot current = snapshot;
+        List<String> free = new ArrayList<>();
+        for (int i = 0; i < current.names.length; i++) {
+            if (buildingFilter != null && !current.lowerCaseNames[i].contains(buildingFilter)) {
+                continue;
+            }
+            if (current.timelines[i].isFree(fromMinute, toMinute)) {
+                free.add(current.names[i]);
+            }
+        }
+        return free;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        long intervals = 0;
+        for (RoomTimeline timeline : current.timelines) {
+            intervals += timeline.size();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rooms", current.names.length);
+        stats.put("intervals", intervals);
+        return stats;
+    }
+
+    void replaceTimelines(Map<String, RoomTimeline> loaded) {
+        snapshot = new Snapshot(new TreeMap<>(loaded));
+    }
+
+    private void addInterval(Map<String, TimelineBuilder> builders, String roomName, Timestamp start, Timestamp end) {
+        if (roomName == null || start == null || end == null) {
+            return;
+        }
+        builders.computeIfAbsent(roomName, name -> new TimelineBuilder())
+                .add(toMinutes(start.toLocalDateTime()), toMinutes(end.toLocalDateTime()));
+    }
+
+    static long toMinutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    // Неизменяемый снимок с аудиториями в порядке имен: запросы читают его без блокировок,
+    // обновления подменяют целиком
+    private static final class Snapshot {
+        private final String[] names;
+        private final String[] lowerCaseNames;
+        private final RoomTimeline[] timelines;
+
+        private Snapshot(TreeMap<String, RoomTimeline> byName) {
+            names = byName.keySet().toArray(new String[0]);
+            timelines = byName.values().toArray(new RoomTimeline[0]);
+            lowerCaseNames = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                lowerCaseNames[i] = names[i].toLowerCase();
+            }
+        }
+
+        private TreeMap<String, RoomTimeline> toMap() {
+            TreeMap<String, RoomTimeline> byName = new TreeMap<>();
+            for (int i = 0; i < names.length; i++) {
+                byName.put(names[i], timelines[i]);
+            }
+            return byName;
+        }
+    }
+
+    static class TimelineBuilder {
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int size;
+
+        void add(long start, long end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        RoomTimeline build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> starts[i]));
+
+            long[] sortedStarts = new long[size];
+            long[] maxEnds = new long[size];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                sortedStarts[i] = starts[order[i]];
+                maxEnd = Math.max(maxEnd, ends[order[i]]);
+                maxEnds[i] = maxEnd;
+            }
+            return new RoomTimeline(sortedStarts, maxEnds);
+        }
+    }
+
+    // Интервалы отсортированы по началу; maxEnds[i] - максимальный конец среди первых i + 1 интервалов,
+    // поэтому пересечение с [from, to) проверяется одним бинарным поиском
+    static final class RoomTimeline {
+        private final long[] starts;
+        private final long[] maxEnds;
+
+        private RoomTimeline(long[] starts, long[] maxEnds) {
+            this.starts = starts;
+            this.maxEnds = maxEnds;
+        }
+
+        boolean isFree(long from, long to) {
+            int startingBefore = lowerBound(starts, to);
+            return startingBefore == 0 || maxEnds[startingBefore - 1] <= from;
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        private static int lowerBound(long[] values, long key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -1,43 +1,98 @@
 package org.schedule.mapping;
 
 import org.schedule.entity.apidata.ResponseDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.RecurrenceRule;
 import org.schedule.entity.forBD.ScheduleMetadataEntity;
+import org.schedule.entity.forBD.UpstreamFeedStateEntity;
 import org.schedule.entity.forBD.basic.GroupEntity;
 import org.schedule.entity.forBD.basic.LessonEntity;
 import org.schedule.entity.forBD.basic.RoomEntity;
 import org.schedule.entity.forBD.basic.TeacherEntity;
+import org.schedule.entity.schedule.FeedFetchResult;
+import org.schedule.events.ScheduleChangedEvent;
 import org.schedule.repository.*;
 import org.schedule.util.SemesterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
 public class SaverToMemory {
     private static final Logger log = LoggerFactory.getLogger(SaverToMemory.class);
 
+    private static final Pattern TEACHER_NAME_PATTERN = Pattern.compile(
+            "[А-ЯЁ][а-яё]+\\s+[А-ЯЁ][а-яё]+\\s+[А-ЯЁ][а-яё]+"
+    );
+    private static final Pattern ROOM_PATTERN = Pattern.compile(
+            "[А-ЯA-Zа-яa-z0-9]+(?:[-\\.\\s][А-ЯA-Zа-яa-z0-9]+)*\\s*\\([^)]+\\)"
+    );
+
     private final LessonRepository lessonRepository;
     private final GroupRepository groupRepository;
     private final TeacherRepository teacherRepository;
     private final RoomRepository roomRepository;
     private final ScheduleMetadataRepository metadataRepository;
+    private final UpstreamFeedStateRepository feedStateRepository;
+    private final LessonUpsertWriter upsertWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulePayloadWriter payloadWriter;
+    private final LessonOccurrenceIndex occurrenceIndex;
+    private final ReferenceDictionary referenceDictionary;
+    private final Executor referenceExecutor;
+    private final boolean parallelProcessingEnabled;
+    private final int parallelThreshold;
+    private final int parallelReferenceThreshold;
+    private final long parallelTimeoutSeconds;
 
     public SaverToMemory(LessonRepository lessonRepository,
                          GroupRepository groupRepository,
                          TeacherRepository teacherRepository,
                          RoomRepository roomRepository,
-                         ScheduleMetadataRepository metadataRepository) {
+                         ScheduleMetadataRepository metadataRepository,
+                         UpstreamFeedStateRepository feedStateRepository,
+                         LessonUpsertWriter upsertWriter,
+                         ApplicationEventPublisher eventPublisher,
+                         SchedulePayloadWriter payloadWriter,
+                         LessonOccurrenceIndex occurrenceIndex,
+                         ReferenceDictionary referenceDictionary,
+                         @Qualifier("referenceExecutor") Executor referenceExecutor,
+                         @Value("${app.parallel-processing.enabled:true}") boolean parallelProcessingEnabled,
+                         @Value("${app.parallel-processing.threshold:100}") int parallelThreshold,
+                         @Value("${app.parallel-processing.reference-threshold:500}") int parallelReferenceThreshold,
+                         @Value("${app.parallel-processing.timeout-seconds:30}") long parallelTimeoutSeconds) {
         this.lessonRepository = lessonRepository;
         this.groupRepository = groupRepository;
         this.teacherRepository = teacherRepository;
         this.roomRepository = roomRepository;
         this.metadataRepository = metadataRepository;
+        this.feedStateRepository = feedStateRepository;
+        this.upsertWriter = upsertWriter;
+        this.eventPublisher = eventPublisher;
+        this.payloadWriter = payloadWriter;
+        this.occurrenceIndex = occurrenceIndex;
+        this.referenceDictionary = referenceDictionary;
+        this.referenceExecutor = referenceExecutor;
+        this.parallelProcessingEnabled = parallelProcessingEnabled;
+        this.parallelThreshold = parallelThreshold;
+        this.parallelReferenceThreshold = parallelReferenceThreshold;
+        this.parallelTimeoutSeconds = parallelTimeoutSeconds;
     }
 
     @Transactional
@@ -57,29 +112,32 @@ public class SaverToMemory {
 
             lessons.forEach(lesson -> lesson.setSemester(currentSemester));
 
-            log.debug("Этап 0: Усиленная дедупликация занятий");
-            List<LessonEntity> deduplicatedLessons = deduplicateLessonsWithDBCheck(lessons);
+            log.debug("Этап 0: Дедупликация занятий по естественному ключу");
+            List<LessonEntity> deduplicatedLessons = deduplicateLessons(lessons);
             log.info("После дедупликации: {} -> {} занятий", lessons.size(), deduplicatedLessons.size());
 
             log.debug("Этап 1: Пакетная обработка справочников");
-            if (shouldUseParallelProcessing(deduplicatedLessons)) {
-                log.debug("Используется параллельная обработка");
-                processAllReferencesParallel(deduplicatedLessons);
-            } else {
-                log.debug("Используется последовательная обработка");
-                processAllReferencesBatch(deduplicatedLessons);
-            }
+            processAllReferences(deduplicatedLessons);
 
-            log.debug("Этап 2: Пакетное сохранение дедуплицированных уроков");
-            List<LessonEntity> savedLessons = lessonRepository.saveAll(deduplicatedLessons);
+            log.debug("Этап 2: Пакетный upsert дедуплицированных уроков");
+            lessonRepository.flush();
+            LessonUpsertWriter.UpsertResult upsertResult = upsertWriter.upsertLessons(deduplicatedLessons);
+            List<String> changedLessonIds = lessonIds(upsertResult.getInserted());
+            changedLessonIds.addAll(lessonIds(upsertResult.getUpdated()));
+            occurrenceIndex.regenerate(changedLessonIds);
 
-            updateScheduleMetadata(entityType, entityName, currentSemester, savedLessons.size());
+            updateScheduleMetadata(entityType, entityName, currentSemester, upsertResult.getTotalCount());
+
+            ScheduleChangedEvent changedEvent = ScheduleChangedEvent.forLessons(deduplicatedLessons, entityName);
+            refreshPayloads(changedEvent, entityType, entityName, currentSemester);
+            eventPublisher.publishEvent(changedEvent);
 
             long duration = System.currentTimeMillis() - startTime;
-            log.info("Пакетное сохранение завершено за {} мс: успешно={} (дедуплицировано с {})",
-                    duration, savedLessons.size(), lessons.size());
+            log.info("Пакетное сохранение завершено за {} мс: вставлено={}, обновлено={}, уже было={} (дедуплицировано с {})",
+                    duration, upsertResult.getInsertedCount(), upsertResult.getUpdatedCount(),
+                    upsertResult.getExisting().size(), lessons.size());
 
-            return new BatchSaveResult(savedLessons.size(), 0, lessons.size(), Collections.emptyList());
+            return new BatchSaveResult(upsertResult.getInsertedCount(), 0, lessons.size(), Collections.emptyList());
 
         } catch (Exception e) {
             log.error("Критическая ошибка при пакетном сохранении: {}", e.getMessage(), e);
@@ -87,6 +145,157 @@ public class SaverToMemory {
         }
     }
 
+    @Transactional
+    public BatchSaveResult syncEntityLessons(List<LessonEntity> lessons, String entityType, String entityName,
+                                             boolean completeSet) {
+        log.info("Начало синхронизации {} уроков для {} {} (полный набор: {})",
+                lessons.size(), entityType, entityName, completeSet);
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            String currentSemester = SemesterUtils.getCurrentSemester();
+            lessons.forEach(lesson -> lesson.setSemester(currentSemester));
+
+            List<LessonEntity> parsedLessons = deduplicateLessons(lessons);
+
+            Map<String, LessonEntity> storedByKey = new HashMap<>();
+            List<LessonEntity> toDelete = new ArrayList<>();
+            for (LessonEntity stored : findStoredLessons(entityType, entityName, currentSemester)) {
+                if (stored.getLessonKey() == null || storedByKey.putIfAbsent(stored.getLessonKey(), stored) != null) {
+                    toDelete.add(stored);
+                }
+            }
+
+            List<LessonEntity> toInsert = new ArrayList<>();
+            // equals занятия не учитывает группы, поэтому пары разобранное -> сохраненное хранятся по ссылке
+            Map<LessonEntity, LessonEntity> toUpdate = new IdentityHashMap<>();
+            int unchangedCount = 0;
+
+            for (LessonEntity parsed : parsedLessons) {
+                LessonEntity stored = storedByKey.remove(parsed.getLessonKey());
+                if (stored == null) {
+                    toInsert.add(parsed);
+                } else if (hasChangedDetails(stored, parsed)) {
+                    toUpdate.put(parsed, stored);
+                } else {
+                    unchangedCount++;
+                }
+            }
+            // без полного набора (часть лент не получена) отсутствующие занятия не удаляются
+            int keptCount = 0;
+            if (completeSet) {
+                toDelete.addAll(storedByKey.values());
+            } else {
+                keptCount = storedByKey.size();
+            }
+
+            log.debug("Дельта для {} {}: вставка={}, обновление={}, удаление={}, без изменений={}",
+                    entityType, entityName, toInsert.size(), toUpdate.size(), toDelete.size(), unchangedCount);
+
+            List<LessonEntity> previousState = new ArrayList<>(toDelete);
+            previousState.addAll(toUpdate.values());
+            ScheduleChangedEvent previousEvent = ScheduleChangedEvent.forLessons(previousState, entityName);
+
+            if (!toDelete.isEmpty()) {
+                lessonRepository.deleteAll(toDelete);
+            }
+
+            List<LessonEntity> toResolve = new ArrayList<>(toInsert);
+            toResolve.addAll(toUpdate.keySet());
+            if (!toResolve.isEmpty()) {
+                processAllReferences(toResolve);
+            }
+
+            toUpdate.forEach(this::applyDetails);
+
+            lessonRepository.flush();
+            LessonUpsertWriter.UpsertResult upsertResult = upsertWriter.upsertLessons(toInsert);
+
+            List<String> changedLessonIds = lessonIds(upsertResult.getInserted());
+            changedLessonIds.addAll(lessonIds(upsertResult.getUpdated()));
+            changedLessonIds.addAll(lessonIds(toUpdate.values()));
+            occurrenceIndex.regenerate(changedLessonIds);
+            int updatedCount = toUpdate.size() + upsertResult.getUpdatedCount();
+
+            updateScheduleMetadata(entityType, entityName, currentSemester, parsedLessons.size() + keptCount);
+
+            ScheduleChangedEvent changedEvent = ScheduleChangedEvent.forLessons(toResolve);
+            payloadWriter.evict(previousEvent.getEntityNames(), entityName);
+            refreshPayloads(changedEvent, entityType, entityName, currentSemester);
+            eventPublisher.publishEvent(previousEvent);
+            eventPublisher.publishEvent(changedEvent);
+
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Синхронизация {} {} завершена за {} мс: вставлено={}, обновлено={}, удалено={}, без изменений={}",
+                    entityType, entityName, duration, upsertResult.getInsertedCount(), updatedCount,
+                    toDelete.size(), unchangedCount);
+
+            return new BatchSaveResult(upsertResult.getInsertedCount(), 0, lessons.size(), Collections.emptyList(),
+                    upsertResult.getInsertedCount(), updatedCount, toDelete.size(),
+                    unchangedCount + upsertResult.getExisting().size() - upsertResult.getUpdatedCount());
+
+        } catch (Exception e) {
+            log.error("Критическая ошибка при синхронизации: {}", e.getMessage(), e);
+            throw new RuntimeException("Не удалось синхронизировать занятия", e);
+        }
+    }
+
+    private void refreshPayloads(ScheduleChangedEvent event, String entityType, String entityName, String semester) {
+        lessonRepository.flush();
+        payloadWriter.evict(event.getEntityNames(), entityName);
+        payloadWriter.rebuild(EntityType.valueOf(entityType), entityName, semester);
+    }
+
+    private List<String> lessonIds(Collection<LessonEntity> lessons) {
+        return lessons.stream()
+                .map(LessonEntity::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<LessonEntity> findStoredLessons(String entityType, String entityName, String semester) {
+        switch (EntityType.valueOf(entityType)) {
+            case GROUP:
+                return lessonRepository.findForSyncByGroup(entityName, semester);
+            case TEACHER:
+                return lessonRepository.findForSyncByTeacher(entityName, semester);
+            case ROOM:
+                return lessonRepository.findForSyncByRoom(entityName, semester);
+            default:
+                return List.of();
+        }
+    }
+
+    private boolean hasChangedDetails(LessonEntity stored, LessonEntity parsed) {
+        return !Objects.equals(stored.getRoom(), parsed.getRoom()) ||
+                !Objects.equals(stored.getDescription(), parsed.getDescription()) ||
+                !sameRecurrence(stored.getRecurrence(), parsed.getRecurrence()) ||
+                !new HashSet<>(safeList(stored.getExceptions())).equals(new HashSet<>(safeList(parsed.getExceptions())));
+    }
+
+    private boolean sameRecurrence(RecurrenceRule first, RecurrenceRule second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        return Objects.equals(first.getFrequency(), second.getFrequency()) &&
+                Objects.equals(first.getInterval(), second.getInterval()) &&
+                Objects.equals(first.getUntil(), second.getUntil());
+    }
+
+    private <T> List<T> safeList(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private void applyDetails(LessonEntity parsed, LessonEntity stored) {
+        stored.setRoom(parsed.getRoom());
+        stored.setDescription(parsed.getDescription());
+        stored.setRecurrence(parsed.getRecurrence());
+        stored.getExceptions().clear();
+        stored.getExceptions().addAll(new LinkedHashSet<>(safeList(parsed.getExceptions())));
+        stored.setRooms(safeList(parsed.getRooms()).stream().distinct().collect(Collectors.toList()));
+    }
+
     private void updateScheduleMetadata(String entityType, String entityName,
                                         String semester, int lessonCount) {
         try {
@@ -114,105 +323,31 @@ public class SaverToMemory {
         }
     }
 
-    private List<LessonEntity> deduplicateLessonsWithDBCheck(List<LessonEntity> lessons) {
-        log.info("Начало усиленной дедупликации {} занятий", lessons.size());
+    private List<LessonEntity> deduplicateLessons(List<LessonEntity> lessons) {
+        log.info("Начало дедупликации {} занятий", lessons.size());
 
-        List<LessonEntity> result = new ArrayList<>();
-        Set<String> seenKeysInCurrentBatch = new HashSet<>();
+        Map<String, LessonEntity> uniqueByKey = new LinkedHashMap<>();
         int duplicatesInBatch = 0;
-        int duplicatesInDB = 0;
 
         for (LessonEntity lesson : lessons) {
             if (lesson == null) continue;
 
-            String key = createDeduplicationKey(lesson);
+            lesson.setLessonKey(LessonKeys.naturalKeyHash(lesson));
 
-            if (seenKeysInCurrentBatch.contains(key)) {
-                log.debug("Пропуск дубликата в текущей пачке: {}", key);
+            if (uniqueByKey.putIfAbsent(lesson.getLessonKey(), lesson) != null) {
+                log.debug("Пропуск дубликата в текущей пачке: {}", LessonKeys.deduplicationKey(lesson));
                 duplicatesInBatch++;
-                continue;
-            }
-
-            boolean existsInDB = checkIfLessonExistsInDatabase(lesson);
-            if (existsInDB) {
-                log.debug("Пропуск дубликата (уже есть в БД): {}", key);
-                duplicatesInDB++;
-                continue;
             }
-
-            result.add(lesson);
-            seenKeysInCurrentBatch.add(key);
-        }
-
-        log.info("Дедупликация завершена. Оригиналов: {}, дубликатов в пачке: {}, дубликатов в БД: {}",
-                result.size(), duplicatesInBatch, duplicatesInDB);
-
-        return result;
-    }
-
-    private String createDeduplicationKey(LessonEntity lesson) {
-        return String.format("%s|%s|%s|%s|%s|%s",
-                lesson.getDiscipline() != null ? lesson.getDiscipline().trim().toLowerCase() : "",
-                lesson.getLessonType() != null ? lesson.getLessonType().name() : "",
-                lesson.getStartTime() != null ? lesson.getStartTime().toString() : "",
-                lesson.getEndTime() != null ? lesson.getEndTime().toString() : "",
-                normalizeGroups(lesson.getGroupsSummary()),
-                lesson.getTeacher() != null ? lesson.getTeacher().trim().toLowerCase() : "");
-    }
-
-    private String normalizeGroups(String groupsSummary) {
-        if (groupsSummary == null || groupsSummary.trim().isEmpty()) {
-            return "";
         }
 
-        return Arrays.stream(groupsSummary.split(",\\s*"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .sorted()
-                .collect(Collectors.joining(", "))
-                .toLowerCase();
-    }
+        log.info("Дедупликация завершена. Оригиналов: {}, дубликатов в пачке: {}",
+                uniqueByKey.size(), duplicatesInBatch);
 
-    private boolean checkIfLessonExistsInDatabase(LessonEntity lesson) {
-        try {
-            String currentSemester = SemesterUtils.getCurrentSemester();
-            List<LessonEntity> existingLessons = lessonRepository
-                    .findByDisciplineAndStartTimeAndEndTimeAndSemester(
-                            lesson.getDiscipline(),
-                            lesson.getStartTime(),
-                            lesson.getEndTime(),
-                            currentSemester
-                    );
-
-            for (LessonEntity existing : existingLessons) {
-                if (isSameLesson(existing, lesson)) {
-                    log.debug("Найден дубликат в БД: ID={}, {}", existing.getId(), createDeduplicationKey(lesson));
-                    return true;
-                }
-            }
-            return false;
-        } catch (Exception e) {
-            log.warn("Ошибка при проверке существования занятия в БД: {}", e.getMessage());
-            return false;
-        }
-    }
-
-    private boolean isSameLesson(LessonEntity lesson1, LessonEntity lesson2) {
-        return Objects.equals(lesson1.getDiscipline(), lesson2.getDiscipline()) &&
-                Objects.equals(lesson1.getLessonType(), lesson2.getLessonType()) &&
-                Objects.equals(lesson1.getStartTime(), lesson2.getStartTime()) &&
-                Objects.equals(lesson1.getEndTime(), lesson2.getEndTime()) &&
-                Objects.equals(normalizeGroups(lesson1.getGroupsSummary()), normalizeGroups(lesson2.getGroupsSummary())) &&
-                Objects.equals(
-                        lesson1.getTeacher() != null ? lesson1.getTeacher().trim().toLowerCase() : "",
-                        lesson2.getTeacher() != null ? lesson2.getTeacher().trim().toLowerCase() : ""
-                );
+        return new ArrayList<>(uniqueByKey.values());
     }
 
     private boolean shouldUseParallelProcessing(List<LessonEntity> lessons) {
-        int threshold = 100;
-
-        if (lessons.size() < threshold) {
+        if (!parallelProcessingEnabled || lessons.size() < parallelThreshold) {
             return false;
         }
 
@@ -227,73 +362,139 @@ public class SaverToMemory {
                 })
                 .sum();
 
-        return totalReferences > 500;
+        return totalReferences > parallelReferenceThreshold;
     }
 
-    private void processAllReferencesBatch(List<LessonEntity> lessons) {
-        log.debug("Пакетная обработка справочников для {} уроков", lessons.size());
+    private void processAllReferences(List<LessonEntity> lessons) {
+        ExtractedNames groupNames;
+        ExtractedNames teacherNames;
+        ExtractedNames roomNames;
+
+        if (shouldUseParallelProcessing(lessons)) {
+            log.debug("Параллельный разбор справочников для {} уроков", lessons.size());
+            List<LessonEntity> snapshot = Collections.unmodifiableList(new ArrayList<>(lessons));
+            CompletableFuture<ExtractedNames> groupsFuture =
+                    CompletableFuture.supplyAsync(() -> extractGroupNames(snapshot), referenceExecutor);
+            CompletableFuture<ExtractedNames> teachersFuture =
+                    CompletableFuture.supplyAsync(() -> extractTeacherNames(snapshot), referenceExecutor);
+            CompletableFuture<ExtractedNames> roomsFuture =
+                    CompletableFuture.supplyAsync(() -> extractRoomNames(snapshot), referenceExecutor);
+
+            groupNames = awaitExtraction(groupsFuture, "групп", () -> extractGroupNames(snapshot));
+            teacherNames = awaitExtraction(teachersFuture, "преподавателей", () -> extractTeacherNames(snapshot));
+            roomNames = awaitExtraction(roomsFuture, "аудиторий", () -> extractRoomNames(snapshot));
+        } else {
+            log.debug("Последовательный разбор справочников для {} уроков", lessons.size());
+            groupNames = extractGroupNames(lessons);
+            teacherNames = extractTeacherNames(lessons);
+            roomNames = extractRoomNames(lessons);
+        }
 
-        processGroupsBatch(lessons);
-        processTeachersBatch(lessons);
-        processRoomsBatch(lessons);
+        // Поиск, создание и привязка справочников - в вызывающем потоке, внутри его транзакции
+        resolveGroups(lessons, groupNames);
+        resolveTeachers(lessons, teacherNames);
+        resolveRooms(lessons, roomNames);
     }
 
-    private void processAllReferencesParallel(List<LessonEntity> lessons) {
-        log.debug("Параллельная обработка справочников для {} уроков", lessons.size());
-
-        CompletableFuture<Void> groupsFuture = CompletableFuture
-                .runAsync(() -> processGroupsBatch(lessons))
-                .exceptionally(ex -> {
-                    log.error("Ошибка при параллельной обработке групп: {}", ex.getMessage());
-                    return null;
-                });
+    private ExtractedNames awaitExtraction(CompletableFuture<ExtractedNames> future, String kind,
+                                           Supplier<ExtractedNames> fallback) {
+        try {
+            return future.get(parallelTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Разбор {} не уложился в {} с, выполняем в текущем потоке", kind, parallelTimeoutSeconds);
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Разбор " + kind + " прерван", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при разборе " + kind, e.getCause());
+        }
+    }
 
-        CompletableFuture<Void> teachersFuture = CompletableFuture
-                .runAsync(() -> processTeachersBatch(lessons))
-                .exceptionally(ex -> {
-                    log.error("Ошибка при параллельной обработке преподавателей: {}", ex.getMessage());
-                    return null;
-                });
+    private ExtractedNames extractGroupNames(List<LessonEntity> lessons) {
+        ExtractedNames extracted = new ExtractedNames(lessons.size());
+        for (LessonEntity lesson : lessons) {
+            if (lesson.getGroups() == null) {
+                extracted.byLesson.add(null);
+                continue;
+            }
+            List<String> names = lesson.getGroups().stream()
+                    .map(GroupEntity::getGroupName)
+                    .collect(Collectors.toList());
+            names.stream()
+                    .filter(name -> name != null && !name.trim().isEmpty())
+                    .forEach(extracted.allNames::add);
+            extracted.byLesson.add(names);
+        }
+        return extracted;
+    }
 
-        CompletableFuture<Void> roomsFuture = CompletableFuture
-                .runAsync(() -> processRoomsBatch(lessons))
-                .exceptionally(ex -> {
-                    log.error("Ошибка при параллельной обработке аудиторий: {}", ex.getMessage());
-                    return null;
-                });
+    private ExtractedNames extractTeacherNames(List<LessonEntity> lessons) {
+        ExtractedNames extracted = new ExtractedNames(lessons.size());
+        for (LessonEntity lesson : lessons) {
+            if (lesson.getTeacher() == null || lesson.getTeacher().trim().isEmpty()) {
+                extracted.byLesson.add(null);
+                continue;
+            }
+            List<String> matched = matchAll(TEACHER_NAME_PATTERN, lesson.getTeacher());
+            extracted.allNames.addAll(matched.isEmpty() ? splitNames(lesson.getTeacher(), "[,\n]") : matched);
+            extracted.byLesson.add(matched);
+        }
+        return extracted;
+    }
 
-        try {
-            CompletableFuture.allOf(groupsFuture, teachersFuture, roomsFuture).join();
-            log.debug("Параллельная обработка справочников завершена");
-        } catch (Exception e) {
-            log.error("Критическая ошибка при параллельной обработке: {}", e.getMessage());
-            throw new RuntimeException("Не удалось выполнить параллельную обработку", e);
+    private ExtractedNames extractRoomNames(List<LessonEntity> lessons) {
+        ExtractedNames extracted = new ExtractedNames(lessons.size());
+        for (LessonEntity lesson : lessons) {
+            if (lesson.getRoom() == null || lesson.getRoom().trim().isEmpty()) {
+                extracted.byLesson.add(null);
+                continue;
+            }
+            List<String> matched = matchAll(ROOM_PATTERN, lesson.getRoom());
+            extracted.allNames.addAll(matched.isEmpty() ? splitNames(lesson.getRoom(), ",") : matched);
+            extracted.byLesson.add(matched);
         }
+        return extracted;
     }
 
-    private void processGroupsBatch(List<LessonEntity> lessons) {
-        Set<String> allGroupNames = lessons.stream()
-                .filter(lesson -> lesson.getGroups() != null)
-                .flatMap(lesson -> lesson.getGroups().stream())
-                .map(GroupEntity::getGroupName)
-                .filter(name -> name != null && !name.trim().isEmpty())
-                .collect(Collectors.toSet());
+    private List<String> matchAll(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        List<String> matched = new ArrayList<>();
+        while (matcher.find()) {
+            matched.add(matcher.group().trim());
+        }
+        return matched;
+    }
 
-        log.debug("Извлечено групп из занятий: {}", allGroupNames);
+    private List<String> splitNames(String value, String separator) {
+        return Arrays.stream(value.split(separator))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
 
-        if (allGroupNames.isEmpty()) {
+    private void resolveGroups(List<LessonEntity> lessons, ExtractedNames groupNames) {
+        if (groupNames.allNames.isEmpty()) {
             log.debug("Нет групп для обработки");
             return;
         }
 
-        log.debug("Обработка {} уникальных групп", allGroupNames.size());
+        log.debug("Обработка {} уникальных групп", groupNames.allNames.size());
 
-        Map<String, GroupEntity> existingGroupsMap = groupRepository
-                .findByGroupNameIn(new ArrayList<>(allGroupNames))
-                .stream()
-                .collect(Collectors.toMap(GroupEntity::getGroupName, Function.identity()));
+        Map<String, GroupEntity> existingGroupsMap = new HashMap<>();
+        referenceDictionary.findAll(EntityType.GROUP, groupNames.allNames)
+                .forEach((groupName, entry) -> existingGroupsMap.put(groupName, knownGroup(groupName, entry)));
+
+        List<String> unknownGroups = unknownNames(groupNames.allNames, existingGroupsMap);
+        if (!unknownGroups.isEmpty()) {
+            for (GroupEntity group : groupRepository.findByGroupNameIn(unknownGroups)) {
+                existingGroupsMap.put(group.getGroupName(), group);
+                referenceDictionary.register(EntityType.GROUP, group.getGroupName(), group.getId(), group.getIdFromApi());
+            }
+        }
 
-        List<GroupEntity> groupsToCreate = allGroupNames.stream()
+        List<GroupEntity> groupsToCreate = groupNames.allNames.stream()
                 .filter(groupName -> !existingGroupsMap.containsKey(groupName))
                 .map(groupName -> {
                     GroupEntity newGroup = new GroupEntity();
@@ -305,53 +506,44 @@ public class SaverToMemory {
         if (!groupsToCreate.isEmpty()) {
             log.debug("Создание {} новых групп", groupsToCreate.size());
             List<GroupEntity> savedGroups = groupRepository.saveAll(groupsToCreate);
-            savedGroups.forEach(group -> existingGroupsMap.put(group.getGroupName(), group));
+            savedGroups.forEach(group -> {
+                existingGroupsMap.put(group.getGroupName(), group);
+                referenceDictionary.register(EntityType.GROUP, group.getGroupName(), group.getId(), null);
+            });
         }
 
-        for (LessonEntity lesson : lessons) {
-            if (lesson.getGroups() != null) {
-                List<GroupEntity> processedGroups = lesson.getGroups().stream()
-                        .map(group -> existingGroupsMap.get(group.getGroupName()))
+        for (int i = 0; i < lessons.size(); i++) {
+            List<String> names = groupNames.byLesson.get(i);
+            if (names != null) {
+                lessons.get(i).setGroups(names.stream()
+                        .map(existingGroupsMap::get)
                         .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                lesson.setGroups(processedGroups);
+                        .collect(Collectors.toList()));
             }
         }
     }
 
-    private void processTeachersBatch(List<LessonEntity> lessons) {
-        java.util.regex.Pattern teacherNamePattern = java.util.regex.Pattern.compile(
-                "[А-ЯЁ][а-яё]+\\s+[А-ЯЁ][а-яё]+\\s+[А-ЯЁ][а-яё]+"
-        );
-
-        Set<String> allTeacherNames = lessons.stream()
-                .filter(lesson -> lesson.getTeacher() != null && !lesson.getTeacher().trim().isEmpty())
-                .flatMap(lesson -> {
-                    java.util.regex.Matcher matcher = teacherNamePattern.matcher(lesson.getTeacher());
-                    List<String> teachers = new ArrayList<>();
-                    while (matcher.find()) {
-                        teachers.add(matcher.group().trim());
-                    }
-                    if (teachers.isEmpty()) {
-                        teachers.addAll(Arrays.asList(lesson.getTeacher().split("[,\n]")));
-                    }
-                    return teachers.stream().map(String::trim).filter(s -> !s.isEmpty());
-                })
-                .collect(Collectors.toSet());
-
-        if (allTeacherNames.isEmpty()) {
+    private void resolveTeachers(List<LessonEntity> lessons, ExtractedNames teacherNames) {
+        if (teacherNames.allNames.isEmpty()) {
             log.debug("Нет преподавателей для обработки");
             return;
         }
 
-        log.debug("Обработка {} уникальных преподавателей", allTeacherNames.size());
+        log.debug("Обработка {} уникальных преподавателей", teacherNames.allNames.size());
 
-        Map<String, TeacherEntity> existingTeachersMap = teacherRepository
-                .findByFullNameIn(new ArrayList<>(allTeacherNames))
-                .stream()
-                .collect(Collectors.toMap(TeacherEntity::getFullName, Function.identity()));
+        Map<String, TeacherEntity> existingTeachersMap = new HashMap<>();
+        referenceDictionary.findAll(EntityType.TEACHER, teacherNames.allNames)
+                .forEach((teacherName, entry) -> existingTeachersMap.put(teacherName, knownTeacher(teacherName, entry)));
 
-        List<TeacherEntity> teachersToCreate = allTeacherNames.stream()
+        List<String> unknownTeachers = unknownNames(teacherNames.allNames, existingTeachersMap);
+        if (!unknownTeachers.isEmpty()) {
+            for (TeacherEntity teacher : teacherRepository.findByFullNameIn(unknownTeachers)) {
+                existingTeachersMap.putIfAbsent(teacher.getFullName(), teacher);
+                referenceDictionary.register(EntityType.TEACHER, teacher.getFullName(), teacher.getId(), teacher.getIdFromApi());
+            }
+        }
+
+        List<TeacherEntity> teachersToCreate = teacherNames.allNames.stream()
                 .filter(teacherName -> !existingTeachersMap.containsKey(teacherName))
                 .map(teacherName -> {
                     TeacherEntity newTeacher = new TeacherEntity();
@@ -363,60 +555,48 @@ public class SaverToMemory {
         if (!teachersToCreate.isEmpty()) {
             log.debug("Создание {} новых преподавателей", teachersToCreate.size());
             List<TeacherEntity> savedTeachers = teacherRepository.saveAll(teachersToCreate);
-            savedTeachers.forEach(teacher -> existingTeachersMap.put(teacher.getFullName(), teacher));
+            savedTeachers.forEach(teacher -> {
+                existingTeachersMap.put(teacher.getFullName(), teacher);
+                referenceDictionary.register(EntityType.TEACHER, teacher.getFullName(), teacher.getId(), null);
+            });
         }
 
-        for (LessonEntity lesson : lessons) {
-            if (lesson.getTeacher() != null && !lesson.getTeacher().trim().isEmpty()) {
-                java.util.regex.Matcher matcher = teacherNamePattern.matcher(lesson.getTeacher());
-                List<TeacherEntity> processedTeachers = new ArrayList<>();
-                while (matcher.find()) {
-                    String teacherName = matcher.group().trim();
-                    TeacherEntity teacher = existingTeachersMap.get(teacherName);
-                    if (teacher != null) {
-                        processedTeachers.add(teacher);
-                    }
-                }
-                if (!processedTeachers.isEmpty()) {
-                    lesson.setTeachers(processedTeachers);
-                }
+        for (int i = 0; i < lessons.size(); i++) {
+            List<String> names = teacherNames.byLesson.get(i);
+            if (names == null) {
+                continue;
+            }
+            List<TeacherEntity> processedTeachers = names.stream()
+                    .map(existingTeachersMap::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (!processedTeachers.isEmpty()) {
+                lessons.get(i).setTeachers(processedTeachers);
             }
         }
     }
 
-    private void processRoomsBatch(List<LessonEntity> lessons) {
-        java.util.regex.Pattern roomPattern = java.util.regex.Pattern.compile(
-                "[А-ЯA-Zа-яa-z0-9]+(?:[-\\.\\s][А-ЯA-Zа-яa-z0-9]+)*\\s*\\([^)]+\\)"
-        );
-
-        Set<String> allRoomNames = lessons.stream()
-                .filter(lesson -> lesson.getRoom() != null && !lesson.getRoom().trim().isEmpty())
-                .flatMap(lesson -> {
-                    java.util.regex.Matcher matcher = roomPattern.matcher(lesson.getRoom());
-                    List<String> rooms = new ArrayList<>();
-                    while (matcher.find()) {
-                        rooms.add(matcher.group().trim());
-                    }
-                    if (rooms.isEmpty()) {
-                        rooms.addAll(Arrays.asList(lesson.getRoom().split(",")));
-                    }
-                    return rooms.stream().map(String::trim).filter(s -> !s.isEmpty());
-                })
-                .collect(Collectors.toSet());
-
-        if (allRoomNames.isEmpty()) {
+    private void resolveRooms(List<LessonEntity> lessons, ExtractedNames roomNames) {
+        if (roomNames.allNames.isEmpty()) {
             log.debug("Нет аудиторий для обработки");
             return;
         }
 
-        log.debug("Обработка {} уникальных аудиторий", allRoomNames.size());
+        log.debug("Обработка {} уникальных аудиторий", roomNames.allNames.size());
 
-        Map<String, RoomEntity> existingRoomsMap = roomRepository
-                .findByRoomNamesIn(new ArrayList<>(allRoomNames))
-                .stream()
-                .collect(Collectors.toMap(RoomEntity::getRoomName, Function.identity()));
+        Map<String, RoomEntity> existingRoomsMap = new HashMap<>();
+        referenceDictionary.findAll(EntityType.ROOM, roomNames.allNames)
+                .forEach((roomName, entry) -> existingRoomsMap.put(roomName, knownRoom(roomName, entry)));
+
+        List<String> unknownRooms = unknownNames(roomNames.allNames, existingRoomsMap);
+        if (!unknownRooms.isEmpty()) {
+            for (RoomEntity room : roomRepository.findByRoomNamesIn(unknownRooms)) {
+                existingRoomsMap.put(room.getRoomName(), room);
+                referenceDictionary.register(EntityType.ROOM, room.getRoomName(), room.getId(), room.getIdFromApi());
+            }
+        }
 
-        List<RoomEntity> roomsToCreate = allRoomNames.stream()
+        List<RoomEntity> roomsToCreate = roomNames.allNames.stream()
                 .filter(roomName -> !existingRoomsMap.containsKey(roomName))
                 .map(roomName -> {
                     RoomEntity newRoom = new RoomEntity();
@@ -428,43 +608,57 @@ public class SaverToMemory {
         if (!roomsToCreate.isEmpty()) {
             log.debug("Создание {} новых аудиторий", roomsToCreate.size());
             List<RoomEntity> savedRooms = roomRepository.saveAll(roomsToCreate);
-            savedRooms.forEach(room -> existingRoomsMap.put(room.getRoomName(), room));
+            savedRooms.forEach(room -> {
+                existingRoomsMap.put(room.getRoomName(), room);
+                referenceDictionary.register(EntityType.ROOM, room.getRoomName(), room.getId(), null);
+            });
         }
 
-        for (LessonEntity lesson : lessons) {
-            if (lesson.getRoom() != null && !lesson.getRoom().trim().isEmpty()) {
-                java.util.regex.Matcher matcher = roomPattern.matcher(lesson.getRoom());
-                List<RoomEntity> processedRooms = new ArrayList<>();
-                while (matcher.find()) {
-                    String roomName = matcher.group().trim();
-                    RoomEntity room = existingRoomsMap.get(roomName);
-                    if (room != null) {
-                        processedRooms.add(room);
-                    }
-                }
-                if (!processedRooms.isEmpty()) {
-                    lesson.setRooms(processedRooms);
-                }
+        for (int i = 0; i < lessons.size(); i++) {
+            List<String> names = roomNames.byLesson.get(i);
+            if (names == null) {
+                continue;
+            }
+            List<RoomEntity> processedRooms = names.stream()
+                    .map(existingRoomsMap::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (!processedRooms.isEmpty()) {
+                lessons.get(i).setRooms(processedRooms);
             }
         }
     }
 
-    @Transactional
-    public void saveLessonsWithErrorHandling(List<LessonEntity> lessons, String entityType, String entityName) {
-        BatchSaveResult result = saveLessonsBatch(lessons, entityType, entityName);
+    private List<String> unknownNames(Set<String> names, Map<String, ?> known) {
+        return names.stream()
+                .filter(name -> !known.containsKey(name))
+                .collect(Collectors.toList());
+    }
 
-        if (result.getErrorCount() > 0) {
-            if (result.getSavedCount() == 0) {
-                throw new RuntimeException("Не удалось сохранить ни одного занятия: " +
-                        String.join("; ", result.getErrors().subList(0, Math.min(5, result.getErrors().size()))));
-            }
+    // Известные по справочнику строки привязываются по id без загрузки из БД: уроки пишутся
+    // через JDBC, а для связей JPA достаточно идентификатора
+    private GroupEntity knownGroup(String groupName, ReferenceDictionary.Entry entry) {
+        GroupEntity group = new GroupEntity();
+        group.setId(entry.getId());
+        group.setGroupName(groupName);
+        group.setIdFromApi(entry.getIdFromApi());
+        return group;
+    }
 
-            if (result.getErrorCount() > lessons.size() / 2) {
-                throw new RuntimeException("Слишком много ошибок при сохранении: " +
-                        result.getSavedCount() + "/" + lessons.size() + " успешно. Ошибки: " +
-                        String.join("; ", result.getErrors().subList(0, Math.min(3, result.getErrors().size()))));
-            }
-        }
+    private TeacherEntity knownTeacher(String teacherName, ReferenceDictionary.Entry entry) {
+        TeacherEntity teacher = new TeacherEntity();
+        teacher.setId(entry.getId());
+        teacher.setFullName(teacherName);
+        teacher.setIdFromApi(entry.getIdFromApi());
+        return teacher;
+    }
+
+    private RoomEntity knownRoom(String roomName, ReferenceDictionary.Entry entry) {
+        RoomEntity room = new RoomEntity();
+        room.setId(entry.getId());
+        room.setRoomName(roomName);
+        room.setIdFromApi(entry.getIdFromApi());
+        return room;
     }
 
     @Transactional
@@ -504,6 +698,7 @@ public class SaverToMemory {
             GroupEntity group = groupOpt.get();
             group.setIdFromApi(apiId);
             groupRepository.save(group);
+            referenceDictionary.register(EntityType.GROUP, groupName, group.getId(), apiId);
         } else {
             log.warn("Группа '{}' не найдена в БД для обновления id_from_api", groupName);
         }
@@ -515,6 +710,7 @@ public class SaverToMemory {
             TeacherEntity teacher = teacherOpt.get();
             teacher.setIdFromApi(apiId);
             teacherRepository.save(teacher);
+            referenceDictionary.register(EntityType.TEACHER, teacherName, teacher.getId(), apiId);
         } else {
             log.warn("Преподаватель '{}' не найден в БД для обновления id_from_api", teacherName);
         }
@@ -526,6 +722,7 @@ public class SaverToMemory {
             RoomEntity room = roomOpt.get();
             room.setIdFromApi(apiId);
             roomRepository.save(room);
+            referenceDictionary.register(EntityType.ROOM, roomName, room.getId(), apiId);
         } else {
             log.warn("Аудитория '{}' не найдена в БД для обновления id_from_api", roomName);
         }
@@ -551,23 +748,104 @@ public class SaverToMemory {
         log.info("Выход из updateAllIdsFromApi, результат: успешно - {}, пропущено - {}", updatedCount, skippedCount);
     }
 
+    @Transactional
+    public void saveFeedStates(List<FeedFetchResult> feeds) {
+        List<FeedFetchResult> acceptedFeeds = feeds.stream()
+                .filter(feed -> !feed.isFailed())
+                .filter(feed -> feed.getSource().getId() != null && feed.getSource().getTarget() != null)
+                .collect(Collectors.toList());
+
+        if (acceptedFeeds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> scheduleIds = acceptedFeeds.stream()
+                .map(feed -> feed.getSource().getId())
+                .collect(Collectors.toSet());
+
+        Map<String, UpstreamFeedStateEntity> existingStates = feedStateRepository.findByScheduleIdIn(scheduleIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        state -> state.getScheduleId() + ":" + state.getScheduleTarget(),
+                        Function.identity(),
+                        (first, second) -> first));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<UpstreamFeedStateEntity> statesToSave = new ArrayList<>();
+
+        for (FeedFetchResult feed : acceptedFeeds) {
+            ResponseDto source = feed.getSource();
+            UpstreamFeedStateEntity state = existingStates.computeIfAbsent(
+                    source.getId() + ":" + source.getTarget(),
+                    key -> new UpstreamFeedStateEntity(source.getId(), source.getTarget()));
+
+            state.setEtag(feed.getEtag());
+            state.setLastModified(feed.getLastModified());
+            state.setLastChecked(now);
+            if (feed.isChanged()) {
+                state.setContentHash(feed.getContentHash());
+                state.setLastChanged(now);
+            }
+            statesToSave.add(state);
+        }
+
+        feedStateRepository.saveAll(statesToSave);
+        log.debug("Сохранено состояний iCal лент: {}", statesToSave.size());
+    }
+
+    @Transactional
+    public void touchScheduleMetadata(String entityType, String entityName) {
+        String currentSemester = SemesterUtils.getCurrentSemester();
+        int updated = metadataRepository.touchLastUpdated(
+                entityType, entityName, currentSemester, LocalDateTime.now());
+        log.debug("Обновлена отметка lastUpdated для {} {}: {} записей", entityType, entityName, updated);
+    }
+
+    // Результат разбора одного вида справочника: все имена для поиска/создания и имена
+    // для привязки по позиции урока (null - привязку урока не трогать)
+    private static class ExtractedNames {
+        private final Set<String> allNames = new HashSet<>();
+        private final List<List<String>> byLesson;
+
+        private ExtractedNames(int lessonCount) {
+            this.byLesson = new ArrayList<>(lessonCount);
+        }
+    }
+
     public static class BatchSaveResult {
         private final int savedCount;
         private final int errorCount;
         private final int totalCount;
         private final List<String> errors;
+        private final int insertedCount;
+        private final int updatedCount;
+        private final int deletedCount;
+        private final int unchangedCount;
 
         public BatchSaveResult(int savedCount, int errorCount, int totalCount, List<String> errors) {
+            this(savedCount, errorCount, totalCount, errors, savedCount, 0, 0, 0);
+        }
+
+        public BatchSaveResult(int savedCount, int errorCount, int totalCount, List<String> errors,
+                               int insertedCount, int updatedCount, int deletedCount, int unchangedCount) {
             this.savedCount = savedCount;
             this.errorCount = errorCount;
             this.totalCount = totalCount;
             this.errors = errors != null ? new ArrayList<>(errors) : new ArrayList<>();
+            this.insertedCount = insertedCount;
+            this.updatedCount = updatedCount;
+            this.deletedCount = deletedCount;
+            this.unchangedCount = unchangedCount;
         }
 
         public int getSavedCount() { return savedCount; }
         public int getErrorCount() { return errorCount; }
         public int getTotalCount() { return totalCount; }
         public List<String> getErrors() { return new ArrayList<>(errors); }
+        public int getInsertedCount() { return insertedCount; }
+        public int getUpdatedCount() { return updatedCount; }
+        public int getDeletedCount() { return deletedCount; }
+        public int getUnchangedCount() { return unchangedCount; }
         public boolean isSuccess() { return errorCount == 0; }
         public double getSuccessRate() {
             return totalCount > 0 ? (double) savedCount / totalCount * 100 : 0;
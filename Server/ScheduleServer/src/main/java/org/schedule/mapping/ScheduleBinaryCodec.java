@@ -0,0 +1,245 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.LessonType;
+import org.schedule.entity.forBD.RecurrenceRule;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Формат v2: версия, таблица строк, затем занятия. Все числа - беззнаковые varint,
+// у nullable значений 0 означает null, а само значение хранится со сдвигом +1.
+// Время - секунды от 1970-01-01T00:00 (локальное время без зоны) в zigzag, даты исключений -
+// разности эпохальных дней в zigzag. v1 отличался только временем: минуты без zigzag,
+// из-за чего терялись секунды UNTIL и время до 1970 года; decode читает обе версии.
+public final class ScheduleBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-schedule-binary";
+    public static final int VERSION = 2;
+    private static final int VERSION_MINUTES = 1;
+
+    private ScheduleBinaryCodec() {}
+
+    public static byte[] encode(List<ScheduleResponseDto> schedule) {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(schedule.size() * 24 + 16);
+
+        writeVarint(body, schedule.size());
+        for (ScheduleResponseDto lesson : schedule) {
+            writeVarint(body, strings.ref(lesson.getDiscipline()));
+            writeVarint(body, strings.ref(lesson.getLessonType() != null ? lesson.getLessonType().name() : null));
+            writeVarint(body, timeRef(lesson.getStartTime()));
+            writeVarint(body, timeRef(lesson.getEndTime()));
+            writeStringList(body, strings, lesson.getRooms());
+            writeStringList(body, strings, lesson.getTeachers());
+            writeStringList(body, strings, lesson.getGroups());
+            writeVarint(body, strings.ref(lesson.getGroupsSummary()));
+            writeVarint(body, strings.ref(lesson.getDescription()));
+            writeRecurrence(body, strings, lesson.getRecurrence());
+            writeExceptions(body, lesson.getExceptions());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + strings.byteSize + 16);
+        writeVarint(out, VERSION);
+        writeVarint(out, strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    public static List<ScheduleResponseDto> decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+
+        long version = readVarint(in);
+        if (version != VERSION && version != VERSION_MINUTES) {
+            throw new IllegalArgumentException("Неподдерживаемая версия бинарного расписания: " + version);
+        }
+
+        int stringCount = (int) readVarint(in);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            byte[] bytes = new byte[(int) readVarint(in)];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int lessonCount = (int) readVarint(in);
+        List<ScheduleResponseDto> schedule = new ArrayList<>(lessonCount);
+        for (int i = 0; i < lessonCount; i++) {
+            String discipline = string(strings, readVarint(in));
+            String lessonType = string(strings, readVarint(in));
+            LocalDateTime startTime = dateTime(readVarint(in), version);
+            LocalDateTime endTime = dateTime(readVarint(in), version);
+            List<String> rooms = readStringList(in, strings);
+            List<String> teachers = readStringList(in, strings);
+            List<String> groups = readStringList(in, strings);
+            String groupsSummary = string(strings, readVarint(in));
+            String description = string(strings, readVarint(in));
+            RecurrenceRule recurrence = readRecurrence(in, strings, version);
+            List<LocalDate> exceptions = readExceptions(in);
+
+            schedule.add(new ScheduleResponseDto(discipline,
+                    lessonType != null ? LessonType.valueOf(lessonType) : null,
+                    startTime, endTime, rooms, teachers, groups, groupsSummary, description,
+                    recurrence, exceptions));
+        }
+        return schedule;
+    }
+
+    private static void writeStringList(ByteArrayOutputStream out, StringTable strings, List<String> values) {
+        if (values == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, values.size() + 1L);
+        for (String value : values) {
+            writeVarint(out, strings.ref(value));
+        }
+    }
+
+    private static List<String> readStringList(ByteBuffer in, String[] strings) {
+        long count = readVarint(in);
+        if (count == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>((int) count - 1);
+        for (long i = 1; i < count; i++) {
+            values.add(string(strings, readVarint(in)));
+        }
+        return values;
+    }
+
+    private static void writeRecurrence(ByteArrayOutputStream out, StringTable strings, RecurrenceRule recurrence) {
+        if (recurrence == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, 1);
+        writeVarint(out, strings.ref(recurrence.getFrequency()));
+        writeVarint(out, recurrence.getInterval() != null ? recurrence.getInterval() + 1L : 0);
+        writeVarint(out, timeRef(recurrence.getUntil()));
+    }
+
+    private static RecurrenceRule readRecurrence(ByteBuffer in, String[] strings, long version) {
+        if (readVarint(in) == 0) {
+            return null;
+        }
+        RecurrenceRule recurrence = new RecurrenceRule();
+        recurrence.setFrequency(string(strings, readVarint(in)));
+        long interval = readVarint(in);
+        recurrence.setInterval(interval != 0 ? (int) (interval - 1) : null);
+        recurrence.setUntil(dateTime(readVarint(in), version));
+        return recurrence;
+    }
+
+    private static void writeExceptions(ByteArrayOutputStream out, List<LocalDate> exceptions) {
+        if (exceptions == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, exceptions.size() + 1L);
+        long previous = 0;
+        for (LocalDate date : exceptions) {
+            long epochDay = date.toEpochDay();
+            writeVarint(out, zigzag(epochDay - previous));
+            previous = epochDay;
+        }
+    }
+
+    private static List<LocalDate> readExceptions(ByteBuffer in) {
+        long count = readVarint(in);
+        if (count == 0) {
+            return null;
+        }
+        List<LocalDate> exceptions = new ArrayList<>((int) count - 1);
+        long previous = 0;
+        for (long i = 1; i < count; i++) {
+            previous += unzigzag(readVarint(in));
+            exceptions.add(LocalDate.ofEpochDay(previous));
+        }
+        return exceptions;
+    }
+
+    private static long timeRef(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return 0;
+        }
+        return zigzag(dateTime.toEpochSecond(ZoneOffset.UTC)) + 1;
+    }
+
+    private static LocalDateTime dateTime(long ref, long version) {
+        if (ref == 0) {
+            return null;
+        }
+        long epochSecond = version == VERSION_MINUTES ? (ref - 1) * 60 : unzigzag(ref - 1);
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static String string(String[] strings, long ref) {
+        return ref == 0 ? null : strings[(int) (ref - 1)];
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalArgumentException("Слишком длинный varint");
+            }
+        }
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int byteSize;
+
+        private long ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+                byteSize += value.length() * 2 + 2;
+            }
+            return index + 1L;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.schedule.mapping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+@Component
+public class ScheduleConflictDetector {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleConflictDetector.class);
+    private static final int NAME_CHUNK_SIZE = 1000;
+
+    private static final String OCCURRENCES_SQL =
+            "SELECT o.resource_type, o.resource_name, o.lesson_id, o.start_time, o.end_time, l.discipline " +
+            "FROM lesson_occurrences o JOIN lessons l ON l.id = o.lesson_id " +
+            "WHERE o.resource_type IN ('TEACHER', 'ROOM') AND l.semester = :semester";
+
+    private static final String OCCURRENCES_BY_NAMES_SQL = OCCURRENCES_SQL + " AND o.resource_name IN (:names)";
+
+    private static final String DELETE_BY_SEMESTER_SQL = "DELETE FROM schedule_conflicts WHERE semester = :semester";
+
+    private static final String DELETE_BY_NAMES_SQL =
+            "DELETE FROM schedule_conflicts WHERE semester = :semester AND resource_name IN (:names)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO schedule_conflicts (resource_type, resource_name, semester, first_lesson_id, " +
+            "first_discipline, second_lesson_id, second_discipline, overlap_start, overlap_end, detected_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final Executor conflictExecutor;
+
+    public ScheduleConflictDetector(JdbcTemplate jdbcTemplate,
+                                    NamedParameterJdbcTemplate namedJdbcTemplate,
+                                    @Qualifier("conflictExecutor") Executor conflictExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.conflictExecutor = conflictExecutor;
+    }
+
+    @Transactional
+    public DetectionResult detectAll(String semester) {
+        long startTime = System.currentTimeMillis();
+
+        Map<ResourceKey, List<Occurrence>> byResource = new HashMap<>();
+        namedJdbcTemplate.query(OCCURRENCES_SQL, new MapSqlParameterSource("semester", semester),
+                rs -> { addOccurrence(byResource, rs.getString("resource_type"), rs.getString("resource_name"),
+                        rs.getString("lesson_id"), rs.getString("discipline"),
+                        rs.getTimestamp("start_time"), rs.getTimestamp("end_time")); });
+        long loadedAt = System.currentTimeMillis();
+
+        List<Conflict> conflicts = sweepParallel(byResource);
+
+        namedJdbcTemplate.update(DELETE_BY_SEMESTER_SQL, new MapSqlParameterSource("semester", semester));
+        insert(conflicts, semester);
+
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("Полная проверка пересечений за {} мс (загрузка {} мс): {} ресурсов, {} конфликтов",
+                duration, loadedAt - startTime, byResource.size(), conflicts.size());
+        return new DetectionResult(byResource.size(), conflicts.size(), duration);
+    }
+
+    @Transactional
+    public DetectionResult detectForResources(Collection<String> names, String semester) {
+        List<String> candidates = new ArrayList<>(new LinkedHashSet<>(names));
+        if (candidates.isEmpty()) {
+            return new DetectionResult(0, 0, 0);
+        }
+
+        long startTime = System.currentTimeMillis();
+        Map<ResourceKey, List<Occurrence>> byResource = new HashMap<>();
+
+        for (int from = 0; from < candidates.size(); from += NAME_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("semester", semester)
+                    .addValue("names", candidates.subList(from, Math.min(from + NAME_CHUNK_SIZE, candidates.size())));
+
+            namedJdbcTemplate.query(OCCURRENCES_BY_NAMES_SQL, params,
+                    rs -> { addOccurrence(byResource, rs.getString("resource_type"), rs.getString("resource_name"),
+                            rs.getString("lesson_id"), rs.getString("discipline"),
+                            rs.getTimestamp("start_time"), rs.getTimestamp("end_time")); });
+            namedJdbcTemplate.update(DELETE_BY_NAMES_SQL, params);
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        byResource.forEach((resource, occurrences) -> conflicts.addAll(sweep(resource, occurrences)));
+        insert(conflicts, semester);
+
+        long duration = System.currentTimeMillis() - startTime;
+        log.debug("Проверка пересечений для {} ресурсов за {} мс: {} конфликтов",
+                byResource.size(), duration, conflicts.size());
+        return new DetectionResult(byResource.size(), conflicts.size(), duration);
+    }
+
+    private List<Conflict> sweepParallel(Map<ResourceKey, List<Occurrence>> byResource) {
+        List<Map.Entry<ResourceKey, List<Occurrence>>> entries = new ArrayList<>(byResource.entrySet());
+        int chunkSize = Math.max(64, entries.size() / (Runtime.getRuntime().availableProcessors() * 4) + 1);
+
+        List<CompletableFuture<List<Conflict>>> futures = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<Map.Entry<ResourceKey, List<Occurrence>>> chunk =
+                    entries.subList(from, Math.min(from + chunkSize, entries.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<Conflict> found = new ArrayList<>();
+                for (Map.Entry<ResourceKey, List<Occurrence>> entry : chunk) {
+                    found.addAll(sweep(entry.getKey(), entry.getValue()));
+                }
+                return found;
+            }, conflictExecutor));
+        }
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    // Заметающая прямая по началам: активны занятия, которые еще не закончились к началу текущего.
+    // Строки одного занятия и одинаковые по времени и дисциплине строки (поток из нескольких
+    // занятий в одной аудитории) конфликтом не считаются
+    static List<Conflict> sweep(ResourceKey resource, List<Occurrence> occurrences) {
+        occurrences.sort(Comparator.comparing(Occurrence::start).thenComparing(Occurrence::end));
+
+        List<Conflict> conflicts = new ArrayList<>();
+        List<Occurrence> active = new ArrayList<>();
+        for (Occurrence current : occurrences) {
+            active.removeIf(occurrence -> !occurrence.end().isAfter(current.start()));
+
+            for (Occurrence other : active) {
+                if (!isSameSession(other, current)) {
+                    conflicts.add(new Conflict(resource, other, current));
+                }
+            }
+            active.add(current);
+        }
+        return conflicts;
+    }
+
+    private static boolean isSameSession(Occurrence first, Occurrence second) {
+        return first.lessonId().equals(second.lessonId()) ||
+                (first.start().equals(second.start()) && first.end().equals(second.end()) &&
+                        Objects.equals(first.discipline(), second.discipline()));
+    }
+
+    private void addOccurrence(Map<ResourceKey, List<Occurrence>> byResource, String resourceType, String resourceName,
+                               String lessonId, String discipline, Timestamp start, Timestamp end) {
+        if (resourceName == null || start == null || end == null) {
+            return;
+        }
+        byResource.computeIfAbsent(new ResourceKey(resourceType, resourceName), key -> new ArrayList<>())
+                .add(new Occurrence(lessonId, discipline, start.toLocalDateTime(), end.toLocalDateTime()));
+    }
+
+    private void insert(List<Conflict> conflicts, String semester) {
+        if (conflicts.isEmpty()) {
+            return;
+        }
+
+        Timestamp detectedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, conflicts, 500, (ps, conflict) -> {
+            ps.setString(1, conflict.resource().type());
+            ps.setString(2, conflict.resource().name());
+            ps.setString(3, semester);
+            ps.setString(4, conflict.first().lessonId());
+            ps.setString(5, conflict.first().discipline());
+            ps.setString(6, conflict.second().lessonId());
+            ps.setString(7, conflict.second().discipline());
+            ps.setTimestamp(8, Timestamp.valueOf(conflict.overlapStart()));
+            ps.setTimestamp(9, Timestamp.valueOf(conflict.overlapEnd()));
+            ps.setTimestamp(10, detectedAt);
+        });
+    }
+
+    record ResourceKey(String type, String name) {
+    }
+
+    record Occurrence(String lessonId, String discipline, LocalDateTime start, LocalDateTime end) {
+    }
+
+    record Conflict(ResourceKey resource, Occurrence first, Occurrence second) {
+        LocalDateTime overlapStart() {
+            return first.start().isAfter(second.start()) ? first.start() : second.start();
+        }
+
+        LocalDateTime overlapEnd() {
+            return first.end().isBefore(second.end()) ? first.end() : second.end();
+        }
+    }
+
+    public static class DetectionResult {
+        private final int resources;
+        private final int conflicts;
+        private final long durationMs;
+
+        public DetectionResult(int resources, int conflicts, long durationMs) {
+            this.resources = resources;
+            this.conflicts = conflicts;
+            this.durationMs = durationMs;
+        }
+
+        public int getResources() { return resources; }
+        public int getConflicts() { return conflicts; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -4,20 +4,47 @@ import org.schedule.entity.ScheduleResponseDto;
 import org.schedule.entity.apidata.MireaApi;
 import org.schedule.entity.apidata.MireaApiData;
 import org.schedule.entity.apidata.ResponseDto;
+import org.schedule.entity.forBD.UpstreamFeedStateEntity;
 import org.schedule.entity.forBD.basic.GroupEntity;
 import org.schedule.entity.forBD.basic.LessonEntity;
 import org.schedule.entity.forBD.basic.RoomEntity;
 import org.schedule.entity.forBD.basic.TeacherEntity;
-import org.schedule.entity.schedule.ScheduleDto;
+import org.schedule.entity.schedule.FeedFetchResult;
+import org.schedule.errors.UpstreamUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,10 +52,19 @@ public class ScheduleMapper {
     private static final Logger log = LoggerFactory.getLogger(ScheduleMapper.class);
     private final RestTemplate restTemplate;
     private final ParserToLesson parser;
-
-    public ScheduleMapper(RestTemplate restTemplate, ParserToLesson parser) {
+    private final Executor upstreamExecutor;
+    private final UpstreamGateway upstreamGateway;
+    private final long searchTimeoutMs;
+
+    public ScheduleMapper(RestTemplate restTemplate, ParserToLesson parser,
+                          @Qualifier("upstreamExecutor") Executor upstreamExecutor,
+                          UpstreamGateway upstreamGateway,
+                          @Value("${app.upstream.search-timeout-ms:45000}") long searchTimeoutMs) {
         this.restTemplate = restTemplate;
         this.parser = parser;
+        this.upstreamExecutor = upstreamExecutor;
+        this.upstreamGateway = upstreamGateway;
+        this.searchTimeoutMs = searchTimeoutMs;
     }
 
     public List<ResponseDto> mapToResponseDto(List<String> titleList, String mireaApiUrl) {
@@ -38,114 +74,209 @@ public class ScheduleMapper {
             throw new IllegalArgumentException("Список заголовков не может быть пустым");
         }
 
+        List<CompletableFuture<List<ResponseDto>>> futures = titleList.stream()
+                .map(title -> submitUpstream(() -> searchTitle(title, mireaApiUrl)))
+                .toList();
+
         List<ResponseDto> result = new ArrayList<>();
+        RestClientException lastError = null;
+        int failedCount = 0;
 
-        for (String title : titleList) {
+        // общий срок на весь поиск: зависший запрос не держит поток, вызвавший загрузку, дольше searchTimeoutMs
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchTimeoutMs);
+        for (int i = 0; i < futures.size(); i++) {
+            String title = titleList.get(i);
             try {
-                String apiUrl = mireaApiUrl + title;
-                ResponseEntity<MireaApi> response = restTemplate.getForEntity(apiUrl, MireaApi.class);
-                MireaApi apiResponse = response.getBody();
-
-                if (apiResponse.getData() == null || apiResponse.getData().isEmpty()) {
-                    log.warn("Нет данных для title: '{}'", title);
-                    continue;
-                }
-
-                for (MireaApiData scheduleData : apiResponse.getData()) {
-                    ResponseDto responseDto = new ResponseDto(
-                            scheduleData.getId(),
-                            scheduleData.getFullTitle(),
-                            scheduleData.getScheduleTarget(),
-                            scheduleData.getiCalLink()
-                    );
-                    result.add(responseDto);
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                result.addAll(futures.get(i).get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                futures.get(i).cancel(true);
+                log.warn("Поиск для title: '{}' не завершился за {} мс", title, searchTimeoutMs);
+                lastError = new ResourceAccessException("Поиск в MIREA не завершился за " + searchTimeoutMs + " мс");
+                failedCount++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("Ожидание ответа MIREA прервано");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UpstreamUnavailableException unavailable) {
+                    log.warn("Запрос для title: '{}' не выполнен: {}", title, unavailable.getMessage());
+                    lastError = unavailable;
+                    failedCount++;
+                } else if (e.getCause() instanceof RestClientException restError) {
+                    log.error("Ошибка при обращении к API для title: '{}'", title, restError);
+                    lastError = restError;
+                    failedCount++;
+                } else {
+                    log.error("Ошибка обработки title: '{}'", title, e.getCause());
                 }
+            }
+        }
 
-            } catch (RestClientException e) {
-                log.error("Ошибка при обращении к API для title: '{}'", title, e);
-                throw new RestClientException("Ошибка получения данных из API расписания", e);
-            } catch (Exception e) {
-                log.error("Ошибка обработки title: '{}'", title, e);
+        if (failedCount == titleList.size()) {
+            if (lastError instanceof UpstreamUnavailableException) {
+                throw lastError;
             }
+            throw new RestClientException("Ошибка получения данных из API расписания", lastError);
         }
 
-        log.info("Выход из mapToResponseDto, результат: {} объектов", result.size());
+        log.info("Выход из mapToResponseDto, результат: {} объектов, ошибок API: {}", result.size(), failedCount);
         return result;
     }
 
-    public List<ScheduleDto> mapToScheduleDto(List<ResponseDto> responseDtos) {
-        log.info("Вход в mapToScheduleDto, ResponseDto: {} элементов", responseDtos.size());
+    private <T> CompletableFuture<T> submitUpstream(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, upstreamExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new UpstreamUnavailableException("Очередь запросов к MIREA переполнена", e));
+        }
+    }
 
-        List<ScheduleDto> result = new ArrayList<>();
+    private List<ResponseDto> searchTitle(String title, String mireaApiUrl) {
+        String apiUrl = mireaApiUrl + title;
+        ResponseEntity<MireaApi> response = upstreamGateway.execute(UpstreamGateway.SEARCH,
+                () -> restTemplate.getForEntity(apiUrl, MireaApi.class));
+        MireaApi apiResponse = response.getBody();
 
-        for (ResponseDto responseDto : responseDtos) {
-            try {
-                String iCalUrl = responseDto.getiCalLink();
+        if (apiResponse == null || apiResponse.getData() == null || apiResponse.getData().isEmpty()) {
+            log.warn("Нет данных для title: '{}'", title);
+            return List.of();
+        }
 
-                if (iCalUrl == null || iCalUrl.trim().isEmpty()) {
-                    log.warn("Нет iCal ссылки для id: {}, target: {}",
-                            responseDto.getId(), responseDto.getTarget());
-                    continue;
-                }
+        List<ResponseDto> result = new ArrayList<>();
+        for (MireaApiData scheduleData : apiResponse.getData()) {
+            ResponseDto responseDto = new ResponseDto(
+                    scheduleData.getId(),
+                    scheduleData.getFullTitle(),
+                    scheduleData.getScheduleTarget(),
+                    scheduleData.getiCalLink()
+            );
+            result.add(responseDto);
+        }
+        return result;
+    }
+
+    public List<FeedFetchResult> fetchFeeds(List<ResponseDto> responseDtos,
+                                            Map<Long, UpstreamFeedStateEntity> knownStates) {
+        log.info("Вход в fetchFeeds, ResponseDto: {} элементов, известных состояний: {}",
+                responseDtos.size(), knownStates.size());
+
+        List<CompletableFuture<FeedFetchResult>> futures = responseDtos.stream()
+                .map(responseDto -> submitUpstream(() -> fetchFeed(responseDto, findKnownState(responseDto, knownStates)))
+                        .exceptionally(e -> {
+                            log.warn("Загрузка iCal для id: {} не выполнена: {}", responseDto.getId(), e.getMessage());
+                            return FeedFetchResult.failed(responseDto);
+                        }))
+                .toList();
+
+        List<FeedFetchResult> result = new ArrayList<>();
+        for (CompletableFuture<FeedFetchResult> future : futures) {
+            result.add(future.join());
+        }
+
+        log.info("Выход из fetchFeeds, статусы: {}", result.stream()
+                .collect(Collectors.groupingBy(FeedFetchResult::getStatus, Collectors.counting())));
+        return result;
+    }
 
-                log.debug("Запрос iCal по URL: {}", iCalUrl);
+    private UpstreamFeedStateEntity findKnownState(ResponseDto responseDto,
+                                                   Map<Long, UpstreamFeedStateEntity> knownStates) {
+        UpstreamFeedStateEntity state = knownStates.get(responseDto.getId());
+        if (state != null && Objects.equals(state.getScheduleTarget(), responseDto.getTarget())) {
+            return state;
+        }
+        return null;
+    }
 
-                ResponseEntity<String> response = restTemplate.getForEntity(iCalUrl, String.class);
-                String iCalContent = response.getBody();
+    private FeedFetchResult fetchFeed(ResponseDto responseDto, UpstreamFeedStateEntity knownState) {
+        try {
+            String iCalUrl = responseDto.getiCalLink();
 
-                if (iCalContent == null || iCalContent.trim().isEmpty()) {
-                    log.warn("Пустой iCal контент для id: {}, target: {}",
-                            responseDto.getId(), responseDto.getTarget());
-                    continue;
+            if (iCalUrl == null || iCalUrl.trim().isEmpty()) {
+                log.warn("Нет iCal ссылки для id: {}, target: {}",
+                        responseDto.getId(), responseDto.getTarget());
+                return FeedFetchResult.failed(responseDto);
+            }
+
+            log.debug("Потоковый запрос iCal по URL: {}, условный: {}", iCalUrl, knownState != null);
+
+            RequestCallback conditionalHeaders = request -> {
+                if (knownState == null) return;
+                if (knownState.getEtag() != null) {
+                    request.getHeaders().setIfNoneMatch(knownState.getEtag());
+                }
+                if (knownState.getLastModified() != null) {
+                    request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, knownState.getLastModified());
                 }
+            };
 
-                ScheduleDto scheduleDto = new ScheduleDto(
-                        responseDto.getId(),
-                        responseDto.getTarget(),
-                        responseDto.getFullTitle(),
-                        iCalContent
-                );
-
-                result.add(scheduleDto);
-                log.debug("Успешно получен iCal для: {}", responseDto.getFullTitle());
-
-            } catch (RestClientException e) {
-                log.error("Ошибка HTTP при получении iCal для id: {}, target: {}, url: {}",
-                        responseDto.getId(), responseDto.getTarget(), responseDto.getiCalLink(), e);
-            } catch (Exception e) {
-                log.error("Ошибка обработки iCal для id: {}, target: {}",
-                        responseDto.getId(), responseDto.getTarget(), e);
+            FeedFetchResult result = upstreamGateway.execute(UpstreamGateway.ICAL,
+                    () -> restTemplate.execute(iCalUrl, HttpMethod.GET, conditionalHeaders,
+                            response -> readFeed(responseDto, knownState, response)));
+
+            if (result != null && result.isChanged() && result.getLessons().isEmpty()) {
+                log.warn("Парсер не нашел занятий для id: {}, target: {}",
+                        responseDto.getId(), responseDto.getTarget());
             }
+            return result != null ? result : FeedFetchResult.failed(responseDto);
+
+        } catch (UpstreamUnavailableException e) {
+            log.warn("iCal для id: {}, target: {} не запрошен: {}",
+                    responseDto.getId(), responseDto.getTarget(), e.getMessage());
+        } catch (RestClientException e) {
+            log.error("Ошибка HTTP при получении iCal для id: {}, target: {}, url: {}",
+                    responseDto.getId(), responseDto.getTarget(), responseDto.getiCalLink(), e);
+        } catch (Exception e) {
+            log.error("Ошибка обработки iCal для id: {}, target: {}",
+                    responseDto.getId(), responseDto.getTarget(), e);
         }
-
-        log.info("Выход из mapToScheduleDto, результат: {} объектов", result.size());
-        return result;
+        return FeedFetchResult.failed(responseDto);
     }
 
-    public List<LessonEntity> parseStringData(List<ScheduleDto> schedule) {
-        log.info("Вход в parseStringData, ScheduleDto: {} элементов", schedule.size());
-
-        List<LessonEntity> lessons = new ArrayList<>();
+    private FeedFetchResult readFeed(ResponseDto responseDto, UpstreamFeedStateEntity knownState,
+                                     ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+
+        if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            log.debug("iCal не изменился (304) для: {}", responseDto.getFullTitle());
+            return new FeedFetchResult(responseDto, FeedFetchResult.Status.NOT_MODIFIED, List.of(),
+                    etag != null ? etag : knownState.getEtag(),
+                    lastModified != null ? lastModified : knownState.getLastModified(),
+                    knownState.getContentHash());
+        }
 
-        for (ScheduleDto dto : schedule) {
-            String data = dto.getiCalContent();
+        DigestInputStream body = new DigestInputStream(response.getBody(), newContentDigest());
+        List<LessonEntity> lessons = parser.parseICalendarToLessons(
+                body, resolveCharset(response), responseDto.getFullTitle());
+        String contentHash = HexFormat.of().formatHex(body.getMessageDigest().digest());
 
-            if (data == null || data.trim().isEmpty()) {
-                log.warn("Пустые iCal данные для ScheduleDto: {}", dto.getId());
-                continue;
-            }
+        if (knownState != null && contentHash.equals(knownState.getContentHash())) {
+            log.debug("Хэш iCal совпал с сохраненным для: {}", responseDto.getFullTitle());
+            return new FeedFetchResult(responseDto, FeedFetchResult.Status.UNCHANGED, List.of(),
+                    etag, lastModified, contentHash);
+        }
 
-            List<LessonEntity> parsedLessons = parser.parseICalendarToLessons(data, dto.getTitle());
+        log.debug("Успешно разобран iCal для: {}", responseDto.getFullTitle());
+        return new FeedFetchResult(responseDto, FeedFetchResult.Status.CHANGED, lessons,
+                etag, lastModified, contentHash);
+    }
 
-            if (parsedLessons != null && !parsedLessons.isEmpty()) {
-                lessons.addAll(parsedLessons);
-            } else {
-                log.warn("Парсер не нашел занятий для ScheduleDto: {}", dto.getId());
-            }
+    private MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
         }
+    }
 
-        log.info("Выход из parseStringData, результат: {} занятий", lessons.size());
-        return lessons;
+    private Charset resolveCharset(ClientHttpResponse response) {
+        MediaType contentType = response.getHeaders().getContentType();
+        if (contentType != null && contentType.getCharset() != null) {
+            return contentType.getCharset();
+        }
+        return StandardCharsets.UTF_8;
     }
 
     public ScheduleResponseDto toResponseDto(LessonEntity lesson) {
@@ -170,7 +301,7 @@ public class ScheduleMapper {
                             .collect(Collectors.toList()) :
                     List.of();
 
-            return new ScheduleResponseDto(
+            ScheduleResponseDto dto = new ScheduleResponseDto(
                     lesson.getDiscipline(),
                     lesson.getLessonType(),
                     lesson.getStartTime(),
@@ -183,6 +314,8 @@ public class ScheduleMapper {
                     lesson.getRecurrence(),
                     lesson.getExceptions()
             );
+            dto.setLessonId(lesson.getId());
+            return dto;
         } catch (Exception e) {
             log.error("Ошибка при маппинге", e);
             return createFallbackResponse(lesson);
@@ -208,7 +341,7 @@ public class ScheduleMapper {
                         .collect(Collectors.toList()) :
                 List.of();
 
-        return new ScheduleResponseDto(
+        ScheduleResponseDto dto = new ScheduleResponseDto(
                 lesson.getDiscipline(),
                 lesson.getLessonType(),
                 lesson.getStartTime(),
@@ -221,6 +354,8 @@ public class ScheduleMapper {
                 lesson.getRecurrence(),
                 lesson.getExceptions()
         );
+        dto.setLessonId(lesson.getId());
+        return dto;
     }
 
     public List<ScheduleResponseDto> toResponseDtoList(List<LessonEntity> lessons) {
@@ -0,0 +1,146 @@
+package org.schedule.mapping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.SchedulePayloadEntity;
+import org.schedule.repository.SchedulePayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class SchedulePayloadWriter {
+    private static final Logger log = LoggerFactory.getLogger(SchedulePayloadWriter.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO schedule_payloads (entity_type, entity_name, semester, etag, json_body, gzip_body, " +
+            "binary_etag, binary_body, lesson_count, built_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (entity_name, semester) DO UPDATE SET entity_type = EXCLUDED.entity_type, " +
+            "etag = EXCLUDED.etag, json_body = EXCLUDED.json_body, gzip_body = EXCLUDED.gzip_body, " +
+            "binary_etag = EXCLUDED.binary_etag, binary_body = EXCLUDED.binary_body, " +
+            "lesson_count = EXCLUDED.lesson_count, built_at = EXCLUDED.built_at";
+
+    // запись, собранная до бинарного формата, считается отсутствующей и заменяется
+    private static final String INSERT_IF_ABSENT_SQL =
+            UPSERT_SQL + " WHERE schedule_payloads.binary_body IS NULL";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduleProjectionReader projectionReader;
+    private final SchedulePayloadRepository payloadRepository;
+
+    public SchedulePayloadWriter(ObjectMapper objectMapper,
+                                 JdbcTemplate jdbcTemplate,
+                                 ScheduleProjectionReader projectionReader,
+                                 SchedulePayloadRepository payloadRepository) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.projectionReader = projectionReader;
+        this.payloadRepository = payloadRepository;
+    }
+
+    public void rebuild(EntityType entityType, String entityName, String semester) {
+        List<ScheduleResponseDto> schedule = projectionReader.readSchedules(entityType, List.of(entityName))
+                .getOrDefault(entityName, List.of());
+
+        // пустое расписание, как и в storeIfAbsent, не сохраняем; прежняя запись отдавала бы удаленные занятия
+        if (schedule.isEmpty()) {
+            int deleted = payloadRepository.deleteByEntityNameAndSemester(entityName, semester);
+            log.debug("Расписание {} {} пусто, payload не пересобран, удалено записей: {}",
+                    entityType, entityName, deleted);
+            return;
+        }
+
+        SchedulePayloadEntity payload = build(entityType, entityName, semester, schedule);
+        write(UPSERT_SQL, payload);
+
+        log.debug("Пересобран payload для {} {}: {} занятий, {} байт JSON, {} байт gzip, {} байт binary, ETag {}",
+                entityType, entityName, schedule.size(), payload.getJsonBody().length,
+                payload.getGzipBody().length, payload.getBinaryBody().length, payload.getEtag());
+    }
+
+    public void storeIfAbsent(SchedulePayloadEntity payload) {
+        write(INSERT_IF_ABSENT_SQL, payload);
+    }
+
+    public void evict(Collection<String> entityNames, String keepEntityName) {
+        Set<String> names = new HashSet<>(entityNames);
+        names.remove(keepEntityName);
+        if (names.isEmpty()) {
+            return;
+        }
+
+        int deleted = payloadRepository.deleteByEntityNameIn(names);
+        log.debug("Удалено {} устаревших payload расписаний", deleted);
+    }
+
+    public void evictAll() {
+        payloadRepository.deleteAllInBatch();
+        log.info("Удалены все сохраненные payload расписаний");
+    }
+
+    public SchedulePayloadEntity build(EntityType entityType, String entityName, String semester,
+                                       List<ScheduleResponseDto> schedule) {
+        byte[] json = serialize(schedule);
+        byte[] binary = ScheduleBinaryCodec.encode(schedule);
+        return new SchedulePayloadEntity(entityType.name(), entityName, semester, etagOf(json),
+                json, gzip(json), etagOf(binary), binary, schedule.size());
+    }
+
+    private void write(String sql, SchedulePayloadEntity payload) {
+        jdbcTemplate.update(sql,
+                payload.getEntityType(),
+                payload.getEntityName(),
+                payload.getSemester(),
+                payload.getEtag(),
+                payload.getJsonBody(),
+                payload.getGzipBody(),
+                payload.getBinaryEtag(),
+                payload.getBinaryBody(),
+                payload.getLessonCount(),
+                LocalDateTime.now());
+    }
+
+    private byte[] serialize(List<ScheduleResponseDto> schedule) {
+        try {
+            return objectMapper.writeValueAsBytes(schedule);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать расписание", e);
+        }
+    }
+
+    private byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private String etagOf(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.schedule.mapping;
+
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.LessonType;
+import org.schedule.entity.forBD.RecurrenceRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Component
+public class ScheduleProjectionReader {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleProjectionReader.class);
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private static final String LESSON_COLUMNS =
+            "l.id, l.discipline, l.lesson_type, l.start_time, l.end_time, l.groups_summary, l.description, " +
+            "l.recurrence_frequency, l.recurrence_interval, l.recurrence_until";
+
+    private static final String LESSONS_BY_GROUPS_SQL =
+            "SELECT g.group_name AS entity_name, " + LESSON_COLUMNS + " FROM lessons l " +
+            "JOIN lesson_group lg ON lg.lesson_id = l.id " +
+            "JOIN groups g ON g.id = lg.group_id WHERE g.group_name IN (:names)";
+
+    private static final String LESSONS_BY_TEACHERS_SQL =
+            "SELECT t.full_name AS entity_name, " + LESSON_COLUMNS + " FROM lessons l " +
+            "JOIN lesson_teacher lt ON lt.lesson_id = l.id " +
+            "JOIN teachers t ON t.id = lt.teacher_id WHERE t.full_name IN (:names)";
+
+    private static final String LESSONS_BY_ROOMS_SQL =
+            "SELECT r.room_name AS entity_name, " + LESSON_COLUMNS + " FROM lessons l " +
+            "JOIN lesson_room lr ON lr.lesson_id = l.id " +
+            "JOIN rooms r ON r.id = lr.room_id WHERE r.room_name IN (:names)";
+
+    private static final String LESSONS_BY_IDS_SQL =
+            "SELECT " + LESSON_COLUMNS + " FROM lessons l WHERE l.id IN (:ids)";
+
+    private static final String GROUPS_BY_LESSONS_SQL =
+            "SELECT lg.lesson_id, g.group_name AS name FROM lesson_group lg " +
+            "JOIN groups g ON g.id = lg.group_id WHERE lg.lesson_id IN (:ids)";
+
+    private static final String TEACHERS_BY_LESSONS_SQL =
+            "SELECT lt.lesson_id, t.full_name AS name FROM lesson_teacher lt " +
+            "JOIN teachers t ON t.id = lt.teacher_id WHERE lt.lesson_id IN (:ids)";
+
+    private static final String ROOMS_BY_LESSONS_SQL =
+            "SELECT lr.lesson_id, r.room_name AS name FROM lesson_room lr " +
+            "JOIN rooms r ON r.id = lr.room_id WHERE lr.lesson_id IN (:ids)";
+
+    private static final String EXCEPTIONS_BY_LESSONS_SQL =
+            "SELECT lesson_id, exception_date FROM lesson_exceptions WHERE lesson_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public ScheduleProjectionReader(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public Map<String, List<ScheduleResponseDto>> readSchedules(EntityType entityType, Collection<String> entityNames) {
+        return readSchedules(Map.of(entityType, entityNames)).getOrDefault(entityType, new LinkedHashMap<>());
+    }
+
+    // Занятие, найденное через несколько сущностей (в том числе разных типов), читается
+    // и превращается в DTO один раз; списки разных сущностей ссылаются на общий экземпляр
+    public Map<EntityType, Map<String, List<ScheduleResponseDto>>> readSchedules(
+            Map<EntityType, ? extends Collection<String>> namesByType) {
+        Map<EntityType, Map<String, List<ScheduleResponseDto>>> result = new EnumMap<>(EntityType.class);
+        Map<String, LessonRow> lessons = new LinkedHashMap<>();
+        Map<EntityType, Map<String, List<String>>> lessonIdsByEntity = new EnumMap<>(EntityType.class);
+
+        namesByType.forEach((entityType, entityNames) -> {
+            if (entityNames.isEmpty()) {
+                return;
+            }
+            Map<String, List<String>> idsByName = lessonIdsByEntity.computeIfAbsent(entityType, type -> new HashMap<>());
+            namedJdbcTemplate.query(lessonsSql(entityType),
+                    new MapSqlParameterSource("names", new ArrayList<>(new LinkedHashSet<>(entityNames))),
+                    rs -> {
+                        String id = rs.getString("id");
+                        lessons.computeIfAbsent(id, key -> mapLessonRow(rs));
+                        idsByName.computeIfAbsent(rs.getString("entity_name"), key -> new ArrayList<>()).add(id);
+                    });
+        });
+
+        attachCollections(lessons);
+
+        namesByType.forEach((entityType, entityNames) -> {
+            Map<String, List<String>> idsByName = lessonIdsByEntity.getOrDefault(entityType, Map.of());
+            Map<String, List<ScheduleResponseDto>> byName = new LinkedHashMap<>();
+            for (String entityName : entityNames) {
+                List<ScheduleResponseDto> dtos = new ArrayList<>();
+                for (String id : idsByName.getOrDefault(entityName, List.of())) {
+                    dtos.add(lessons.get(id).toDto());
+                }
+                byName.put(entityName, dtos);
+            }
+            result.put(entityType, byName);
+        });
+
+        log.debug("Проекция для {} типов сущностей: {} уникальных занятий", namesByType.size(), lessons.size());
+        return result;
+    }
+
+    public Map<String, ScheduleResponseDto> readByLessonIds(Collection<String> lessonIds) {
+        Map<String, LessonRow> lessons = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(lessonIds));
+
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            namedJdbcTemplate.query(LESSONS_BY_IDS_SQL,
+                    new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()))),
+                    rs -> {
+                        lessons.computeIfAbsent(rs.getString("id"), key -> mapLessonRow(rs));
+                    });
+        }
+
+        attachCollections(lessons);
+
+        Map<String, ScheduleResponseDto> result = new LinkedHashMap<>();
+        lessons.forEach((id, row) -> result.put(id, row.toDto()));
+        return result;
+    }
+
+    private String lessonsSql(EntityType entityType) {
+        switch (entityType) {
+            case GROUP:
+                return LESSONS_BY_GROUPS_SQL;
+            case TEACHER:
+                return LESSONS_BY_TEACHERS_SQL;
+            case ROOM:
+                return LESSONS_BY_ROOMS_SQL;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип сущности: " + entityType);
+        }
+    }
+
+    private void attachCollections(Map<String, LessonRow> lessons) {
+        List<String> ids = new ArrayList<>(lessons.keySet());
+
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+
+            namedJdbcTemplate.query(GROUPS_BY_LESSONS_SQL, params,
+                    rs -> { lessons.get(rs.getString("lesson_id")).groups.add(rs.getString("name")); });
+            namedJdbcTemplate.query(TEACHERS_BY_LESSONS_SQL, params,
+                    rs -> { addIfPresent(lessons.get(rs.getString("lesson_id")).teachers, rs.getString("name")); });
+            namedJdbcTemplate.query(ROOMS_BY_LESSONS_SQL, params,
+                    rs -> { addIfPresent(lessons.get(rs.getString("lesson_id")).rooms, rs.getString("name")); });
+            namedJdbcTemplate.query(EXCEPTIONS_BY_LESSONS_SQL, params,
+                    rs -> { lessons.get(rs.getString("lesson_id")).exceptions.add(rs.getObject("exception_date", LocalDate.class)); });
+        }
+    }
+
+    private void addIfPresent(List<String> target, String name) {
+        if (name != null && !name.trim().isEmpty()) {
+            target.add(name);
+        }
+    }
+
+    private LessonRow mapLessonRow(ResultSet rs) {
+        try {
+            LessonRow row = new LessonRow();
+            row.id = rs.getString("id");
+            row.discipline = rs.getString("discipline");
+            row.lessonType = LessonType.valueOf(rs.getString("lesson_type"));
+            row.startTime = toLocalDateTime(rs.getTimestamp("start_time"));
+            row.endTime = toLocalDateTime(rs.getTimestamp("end_time"));
+            row.groupsSummary = rs.getString("groups_summary");
+            row.description = rs.getString("description");
+
+            String frequency = rs.getString("recurrence_frequency");
+            Integer interval = (Integer) rs.getObject("recurrence_interval");
+            LocalDateTime until = toLocalDateTime(rs.getTimestamp("recurrence_until"));
+            if (frequency != null || interval != null || until != null) {
+                row.recurrence = new RecurrenceRule();
+                row.recurrence.setFrequency(frequency);
+                row.recurrence.setInterval(interval);
+                row.recurrence.setUntil(until);
+            }
+            return row;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось прочитать занятие", e);
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static class LessonRow {
+        private String id;
+        private String discipline;
+        private LessonType lessonType;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private String groupsSummary;
+        private String description;
+        private RecurrenceRule recurrence;
+        private final List<String> groups = new ArrayList<>();
+        private final List<String> teachers = new ArrayList<>();
+        private final List<String> rooms = new ArrayList<>();
+        private final List<LocalDate> exceptions = new ArrayList<>();
+        private ScheduleResponseDto dto;
+
+        private ScheduleResponseDto toDto() {
+            if (dto == null) {
+                dto = new ScheduleResponseDto(discipline, lessonType, startTime, endTime,
+                        rooms, teachers, groups, groupsSummary, description, recurrence, exceptions);
+                dto.setLessonId(id);
+            }
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.schedule.mapping;
+
+import org.schedule.errors.UpstreamUnavailableException;
+import org.schedule.util.CircuitBreaker;
+import org.schedule.util.RetryBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Все обращения к MIREA: у каждого вида запросов свой автомат размыкания и бюджет повторов.
+// При разомкнутой цепи вызов сразу завершается UpstreamUnavailableException, не занимая поток ожиданием таймаута
+@Component
+public class UpstreamGateway {
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGateway.class);
+
+    public static final String SEARCH = "search";
+    public static final String ICAL = "ical";
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double budgetRatio;
+    private final int budgetMaxTokens;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public UpstreamGateway(@Value("${app.upstream.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${app.upstream.retry.base-delay-ms:200}") long baseDelayMs,
+                           @Value("${app.upstream.retry.max-delay-ms:2000}") long maxDelayMs,
+                           @Value("${app.upstream.retry.budget-ratio:0.1}") double budgetRatio,
+                           @Value("${app.upstream.retry.budget-max-tokens:10}") int budgetMaxTokens,
+                           @Value("${app.upstream.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${app.upstream.circuit.open-seconds:30}") long openSeconds) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.budgetRatio = budgetRatio;
+        this.budgetMaxTokens = budgetMaxTokens;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofSeconds(openSeconds);
+    }
+
+    public <T> T execute(String endpointName, Supplier<T> call) {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointName, name -> new Endpoint());
+        endpoint.retryBudget.onRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            if (!endpoint.circuitBreaker.tryAcquire()) {
+                throw new UpstreamUnavailableException("MIREA недоступен: цепь '" + endpointName + "' разомкнута");
+            }
+
+            try {
+                T result = call.get();
+                endpoint.circuitBreaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                RestClientException restError = asRestClientException(e);
+                if (restError == null) {
+                    // ошибка не классифицирована: ни успехом, ни отказом MIREA ее не считаем
+                    endpoint.circuitBreaker.release();
+                    throw e;
+                }
+                if (!isRetryable(restError)) {
+                    // сервис ответил, пусть и ошибкой запроса: цепь это не размыкает
+                    endpoint.circuitBreaker.onSuccess();
+                    throw restError;
+                }
+
+                endpoint.circuitBreaker.onFailure();
+                if (attempt >= maxAttempts || !endpoint.retryBudget.tryRetry()) {
+                    throw restError;
+                }
+
+                long delay = backoffDelay(attempt);
+                log.debug("Повтор {} к '{}' через {} мс после ошибки: {}", attempt, endpointName, delay, restError.getMessage());
+                if (!sleep(delay)) {
+                    throw restError;
+                }
+            }
+        }
+    }
+
+    // RestTemplate превращает в ResourceAccessException только проверяемый IOException.
+    // Таймаут чтения тела внутри потокового разбора приходит как UncheckedIOException и должен считаться тем же отказом
+    private RestClientException asRestClientException(RuntimeException e) {
+        if (e instanceof ResourceAccessException || e instanceof RestClientResponseException) {
+            return (RestClientException) e;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException io) {
+                return new ResourceAccessException("Ошибка ввода-вывода при чтении ответа MIREA: " + io.getMessage(),
+                        io.getCause());
+            }
+        }
+        return e instanceof RestClientException restError ? restError : null;
+    }
+
+    private boolean isRetryable(RestClientException e) {
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException) {
+            return true;
+        }
+        return e instanceof HttpClientErrorException.TooManyRequests;
+    }
+
+    // экспоненциальная задержка с полным джиттером: повторы разных запросов не приходят одной волной
+    private long backoffDelay(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            Map<String, Object> endpointStats = new HashMap<>(endpoint.circuitBreaker.getStats());
+            endpointStats.put("retryBudget", endpoint.retryBudget.getStats());
+            stats.put(name, endpointStats);
+        });
+        return stats;
+    }
+
+    private class Endpoint {
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        private final RetryBudget retryBudget = new RetryBudget(budgetRatio, budgetMaxTokens);
+    }
+}
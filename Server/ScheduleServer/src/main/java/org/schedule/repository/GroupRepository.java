@@ -19,4 +19,6 @@ public interface GroupRepository extends JpaRepository<GroupEntity, Long> {
 
     @Query("SELECT g FROM GroupEntity g WHERE g.groupName IN :groupNames")
     List<GroupEntity> findByGroupNameIn(@Param("groupNames") Collection<String> groupNames);
+
+    List<GroupEntity> findByIdFromApiIsNotNull();
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,6 +33,51 @@ public interface LessonRepository extends JpaRepository<LessonEntity, String> {
             @Param("semester") String semester
     );
 
+    @Query("SELECT g.groupName, l FROM LessonEntity l JOIN l.groups g " +
+            "WHERE g.groupName IN :names AND l.semester = :semester")
+    List<Object[]> findByGroupNamesAndSemester(@Param("names") Collection<String> groupNames,
+                                               @Param("semester") String semester);
+
+    @Query("SELECT t.fullName, l FROM LessonEntity l JOIN l.teachers t " +
+            "WHERE t.fullName IN :names AND l.semester = :semester")
+    List<Object[]> findByTeacherNamesAndSemester(@Param("names") Collection<String> fullNames,
+                                                 @Param("semester") String semester);
+
+    @Query("SELECT r.roomName, l FROM LessonEntity l JOIN l.rooms r " +
+            "WHERE r.roomName IN :names AND l.semester = :semester")
+    List<Object[]> findByRoomNamesAndSemester(@Param("names") Collection<String> roomNames,
+                                              @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT g.groupName FROM LessonEntity l JOIN l.groups g " +
+            "WHERE g.groupName IN :names AND l.semester = :semester")
+    List<String> findGroupNamesWithLessons(@Param("names") Collection<String> groupNames,
+                                           @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT t.fullName FROM LessonEntity l JOIN l.teachers t " +
+            "WHERE t.fullName IN :names AND l.semester = :semester")
+    List<String> findTeacherNamesWithLessons(@Param("names") Collection<String> fullNames,
+                                             @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT r.roomName FROM LessonEntity l JOIN l.rooms r " +
+            "WHERE r.roomName IN :names AND l.semester = :semester")
+    List<String> findRoomNamesWithLessons(@Param("names") Collection<String> roomNames,
+                                          @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT l FROM LessonEntity l LEFT JOIN FETCH l.exceptions " +
+            "JOIN l.groups g WHERE g.groupName = :name AND l.semester = :semester")
+    List<LessonEntity> findForSyncByGroup(@Param("name") String groupName, @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT l FROM LessonEntity l LEFT JOIN FETCH l.exceptions " +
+            "JOIN l.teachers t WHERE t.fullName = :name AND l.semester = :semester")
+    List<LessonEntity> findForSyncByTeacher(@Param("name") String fullName, @Param("semester") String semester);
+
+    @Query("SELECT DISTINCT l FROM LessonEntity l LEFT JOIN FETCH l.exceptions " +
+            "JOIN l.rooms r WHERE r.roomName = :name AND l.semester = :semester")
+    List<LessonEntity> findForSyncByRoom(@Param("name") String roomName, @Param("semester") String semester);
+
+    @Query("SELECT l FROM LessonEntity l WHERE l.lessonKey IS NULL")
+    List<LessonEntity> findByLessonKeyIsNull();
+
     @Modifying
     @Transactional
     @Query("DELETE FROM LessonEntity l WHERE l.semester != :currentSemester")
@@ -15,4 +15,6 @@ public interface RoomRepository extends JpaRepository<RoomEntity, Long> {
 
     @Query("SELECT r FROM RoomEntity r WHERE r.roomName IN :roomNames")
     List<RoomEntity> findByRoomNamesIn(@Param("roomNames") List<String> roomNames);
+
+    List<RoomEntity> findByIdFromApiIsNotNull();
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.schedule.repository;
+
+import org.schedule.entity.forBD.ScheduleConflictEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScheduleConflictRepository extends JpaRepository<ScheduleConflictEntity, Long> {
+
+    List<ScheduleConflictEntity> findBySemesterOrderByOverlapStartAsc(String semester);
+
+    List<ScheduleConflictEntity> findBySemesterAndResourceTypeOrderByOverlapStartAsc(String semester, String resourceType);
+
+    List<ScheduleConflictEntity> findBySemesterAndResourceNameOrderByOverlapStartAsc(String semester, String resourceName);
+
+    long countBySemester(String semester);
+}
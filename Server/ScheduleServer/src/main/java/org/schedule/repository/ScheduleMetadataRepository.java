@@ -31,6 +31,17 @@ public interface ScheduleMetadataRepository extends JpaRepository<ScheduleMetada
             @Param("entityNames") List<String> entityNames,
             @Param("semester") String semester);
 
+    @Query("SELECT m.entityName FROM ScheduleMetadataEntity m WHERE " +
+            "m.entityType = :entityType AND m.semester = :semester")
+    List<String> findEntityNamesByEntityTypeAndSemester(
+            @Param("entityType") String entityType,
+            @Param("semester") String semester);
+
+    @Query("SELECT MAX(m.lastUpdated) FROM ScheduleMetadataEntity m WHERE " +
+            "m.entityName = :entityName AND m.semester = :semester")
+    LocalDateTime findLastUpdated(@Param("entityName") String entityName,
+                                  @Param("semester") String semester);
+
     @Query("SELECT COUNT(m) FROM ScheduleMetadataEntity m WHERE " +
             "m.entityType = :entityType AND m.entityName = :entityName AND m.semester = :semester")
     int countByEntityTypeAndEntityNameAndSemester(
@@ -46,6 +57,15 @@ public interface ScheduleMetadataRepository extends JpaRepository<ScheduleMetada
                         @Param("lastUpdated") LocalDateTime lastUpdated,
                         @Param("lessonCount") Integer lessonCount);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduleMetadataEntity m SET m.lastUpdated = :lastUpdated WHERE " +
+            "m.entityType = :entityType AND m.entityName = :entityName AND m.semester = :semester")
+    int touchLastUpdated(@Param("entityType") String entityType,
+                         @Param("entityName") String entityName,
+                         @Param("semester") String semester,
+                         @Param("lastUpdated") LocalDateTime lastUpdated);
+
     @Modifying
     @Transactional
     void deleteByEntityTypeAndEntityNameAndSemester(
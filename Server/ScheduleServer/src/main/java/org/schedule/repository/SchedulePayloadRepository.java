@@ -0,0 +1,25 @@
+package org.schedule.repository;
+
+import org.schedule.entity.forBD.SchedulePayloadEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface SchedulePayloadRepository extends JpaRepository<SchedulePayloadEntity, Long> {
+
+    Optional<SchedulePayloadEntity> findByEntityNameAndSemester(String entityName, String semester);
+
+    @Modifying
+    @Query("DELETE FROM SchedulePayloadEntity p WHERE p.entityName IN :entityNames")
+    int deleteByEntityNameIn(@Param("entityNames") Collection<String> entityNames);
+
+    @Modifying
+    @Query("DELETE FROM SchedulePayloadEntity p WHERE p.entityName = :entityName AND p.semester = :semester")
+    int deleteByEntityNameAndSemester(@Param("entityName") String entityName, @Param("semester") String semester);
+}
@@ -16,4 +16,6 @@ public interface TeacherRepository extends JpaRepository<TeacherEntity, Long> {
 
     @Query("SELECT t FROM TeacherEntity t WHERE t.fullName IN :fullNames")
     List<TeacherEntity> findByFullNameIn(@Param("fullNames") Collection<String> fullNames);
+
+    List<TeacherEntity> findByIdFromApiIsNotNull();
 }
\ No newline at end of file
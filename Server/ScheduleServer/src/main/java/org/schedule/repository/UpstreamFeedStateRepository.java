@@ -0,0 +1,17 @@
+package org.schedule.repository;
+
+import org.schedule.entity.forBD.UpstreamFeedStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UpstreamFeedStateRepository extends JpaRepository<UpstreamFeedStateEntity, Long> {
+
+    @Query("SELECT s FROM UpstreamFeedStateEntity s WHERE s.scheduleId IN :scheduleIds")
+    List<UpstreamFeedStateEntity> findByScheduleIdIn(@Param("scheduleIds") Collection<Long> scheduleIds);
+}
@@ -0,0 +1,14 @@
+package org.schedule.reservations;
+
+public record RefreshResult(
+        String entityName,
+        int changedFeeds,
+        int unchangedFeeds,
+        int failedFeeds,
+        int parsedLessons,
+        int insertedLessons,
+        int updatedLessons,
+        int deletedLessons,
+        int unchangedLessons
+) {
+}
@@ -0,0 +1,65 @@
+package org.schedule.reservations;
+
+import org.schedule.entity.ScheduleConflictDto;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.ScheduleConflictEntity;
+import org.schedule.mapping.ScheduleConflictDetector;
+import org.schedule.repository.ScheduleConflictRepository;
+import org.schedule.util.SemesterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ScheduleConflictService {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleConflictService.class);
+
+    private final ScheduleConflictRepository conflictRepository;
+    private final ScheduleConflictDetector conflictDetector;
+
+    public ScheduleConflictService(ScheduleConflictRepository conflictRepository,
+                                   ScheduleConflictDetector conflictDetector) {
+        this.conflictRepository = conflictRepository;
+        this.conflictDetector = conflictDetector;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduleConflictDto> getConflicts(EntityType resourceType, String resourceName) {
+        String semester = SemesterUtils.getCurrentSemester();
+
+        List<ScheduleConflictEntity> conflicts;
+        if (resourceName != null && !resourceName.trim().isEmpty()) {
+            conflicts = conflictRepository.findBySemesterAndResourceNameOrderByOverlapStartAsc(
+                    semester, resourceName.trim());
+        } else if (resourceType != null) {
+            if (resourceType == EntityType.GROUP) {
+                throw new IllegalArgumentException("Пересечения проверяются только для преподавателей и аудиторий");
+            }
+            conflicts = conflictRepository.findBySemesterAndResourceTypeOrderByOverlapStartAsc(
+                    semester, resourceType.name());
+        } else {
+            conflicts = conflictRepository.findBySemesterOrderByOverlapStartAsc(semester);
+        }
+
+        log.debug("Найдено {} пересечений (тип: {}, ресурс: {})", conflicts.size(), resourceType, resourceName);
+        return conflicts.stream()
+                .filter(conflict -> resourceType == null || resourceType.name().equals(conflict.getResourceType()))
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public ScheduleConflictDetector.DetectionResult detectAll() {
+        return conflictDetector.detectAll(SemesterUtils.getCurrentSemester());
+    }
+
+    private ScheduleConflictDto toDto(ScheduleConflictEntity conflict) {
+        return new ScheduleConflictDto(conflict.getResourceType(), conflict.getResourceName(),
+                conflict.getFirstLessonId(), conflict.getFirstDiscipline(),
+                conflict.getSecondLessonId(), conflict.getSecondDiscipline(),
+                conflict.getOverlapStart(), conflict.getOverlapEnd());
+    }
+}
@@ -1,17 +1,29 @@
 package org.schedule.reservations;
 
+import org.schedule.entity.ScheduleOccurrenceDto;
 import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.SchedulePayloadEntity;
+import org.schedule.mapping.ScheduleBinaryCodec;
 import org.schedule.mapping.ScheduleMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,17 +32,28 @@ import java.util.List;
 @Validated
 public class ScheduleController {
     private static final Logger log = LoggerFactory.getLogger(ScheduleController.class);
+    private static final String STALE_HEADER = "X-Schedule-Stale";
+    private static final String UPSTREAM_HEADER = "X-Schedule-Upstream";
 
     private final ScheduleService scheduleService;
     private final ScheduleMapper mapper;
+    private final ScheduleFreshnessService freshnessService;
+    private final int maxWindowDays;
 
-    public ScheduleController(ScheduleService scheduleService, ScheduleMapper mapper) {
+    public ScheduleController(ScheduleService scheduleService, ScheduleMapper mapper,
+                              ScheduleFreshnessService freshnessService,
+                              @Value("${app.schedule.window.max-days:200}") int maxWindowDays) {
         this.scheduleService = scheduleService;
         this.mapper = mapper;
+        this.freshnessService = freshnessService;
+        this.maxWindowDays = maxWindowDays;
     }
     @GetMapping("/final/{titles}")
-    public ResponseEntity<List<ScheduleResponseDto>> getScheduleForGroupsLegacy(
-            @PathVariable("titles") String titles
+    public ResponseEntity<?> getScheduleForGroupsLegacy(
+            @PathVariable("titles") String titles,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
     ) {
         log.info("called getScheduleForGroupsLegacy with titles: {}", titles);
 
@@ -39,10 +62,123 @@ public class ScheduleController {
                 .filter(s -> !s.isEmpty())
                 .toList();
 
+        if (accept != null && accept.contains(ScheduleBinaryCodec.MEDIA_TYPE)) {
+            return binaryResponse(titleList, ifNoneMatch);
+        }
+
+        if (titleList.size() == 1) {
+            SchedulePayloadEntity payload = scheduleService.getSchedulePayload(titleList.get(0));
+            return payloadResponse(payload, freshnessService.check(titleList), ifNoneMatch, acceptEncoding);
+        }
+
         List<ScheduleResponseDto> result = scheduleService.getScheduleForGroups(titleList);
 
-        return ResponseEntity
-                .status(HttpStatus.OK)
+        return withFreshness(ResponseEntity.status(HttpStatus.OK), freshnessService.check(titleList))
                 .body(result);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/window/{entity}")
+    public ResponseEntity<List<ScheduleOccurrenceDto>> getScheduleWindow(
+            @PathVariable("entity") String entity,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        log.info("called getScheduleWindow with entity: {}, from: {}, to: {}", entity, from, to);
+
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания окна раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxWindowDays) {
+            throw new IllegalArgumentException("Окно расписания не может превышать " + maxWindowDays + " дней");
+        }
+
+        List<ScheduleOccurrenceDto> occurrences = scheduleService.getScheduleWindow(entity, from, to);
+        return withFreshness(ResponseEntity.ok(), freshnessService.check(List.of(entity)))
+                .body(occurrences);
+    }
+
+    @GetMapping("/rooms/free")
+    public ResponseEntity<List<String>> getFreeRooms(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "building", required = false) String building
+    ) {
+        log.info("called getFreeRooms with from: {}, to: {}, building: {}", from, to, building);
+
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Время окончания должно быть позже времени начала");
+        }
+
+        return ResponseEntity.ok(scheduleService.findFreeRooms(from, to, building));
+    }
+
+    private ResponseEntity<byte[]> binaryResponse(List<String> titleList, String ifNoneMatch) {
+        ScheduleFreshnessService.Freshness freshness = freshnessService.check(titleList);
+        if (titleList.size() != 1) {
+            byte[] body = ScheduleBinaryCodec.encode(scheduleService.getScheduleForGroups(titleList));
+            return binaryBody(withFreshness(ResponseEntity.ok(), freshness), body);
+        }
+
+        SchedulePayloadEntity payload = scheduleService.getSchedulePayload(titleList.get(0));
+        String etag = payload.getBinaryEtag();
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return withFreshness(ResponseEntity.status(HttpStatus.NOT_MODIFIED), freshness)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+
+        return binaryBody(withFreshness(ResponseEntity.ok(), freshness).eTag(etag), payload.getBinaryBody());
+    }
+
+    private ResponseEntity<byte[]> binaryBody(ResponseEntity.BodyBuilder response, byte[] body) {
+        return response
+                .contentType(MediaType.parseMediaType(ScheduleBinaryCodec.MEDIA_TYPE))
+                .contentLength(body.length)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    private ResponseEntity<byte[]> payloadResponse(SchedulePayloadEntity payload,
+                                                   ScheduleFreshnessService.Freshness freshness,
+                                                   String ifNoneMatch, String acceptEncoding) {
+        if (ifNoneMatch != null && (ifNoneMatch.contains(payload.getEtag()) || ifNoneMatch.trim().equals("*"))) {
+            return withFreshness(ResponseEntity.status(HttpStatus.NOT_MODIFIED), freshness)
+                    .eTag(payload.getEtag())
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = withFreshness(ResponseEntity.ok(), freshness)
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(payload.getEtag())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(payload.getGzipBody().length)
+                    .body(payload.getGzipBody());
+        }
+
+        return response
+                .contentLength(payload.getJsonBody().length)
+                .body(payload.getJsonBody());
+    }
+
+    // Age - сколько секунд назад данные сверялись с MIREA; при устаревших данных обновление уже поставлено в очередь,
+    // X-Schedule-Upstream - ответ собран из сохраненных данных, потому что MIREA недоступен
+    private ResponseEntity.BodyBuilder withFreshness(ResponseEntity.BodyBuilder response,
+                                                     ScheduleFreshnessService.Freshness freshness) {
+        if (freshness.getAgeSeconds() >= 0) {
+            response.header(HttpHeaders.AGE, String.valueOf(freshness.getAgeSeconds()));
+        }
+        if (freshness.isKnown()) {
+            response.header(STALE_HEADER, String.valueOf(freshness.isStale()));
+        }
+        if (freshness.isUpstreamUnavailable()) {
+            response.header(UPSTREAM_HEADER, "unavailable");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,199 @@
+package org.schedule.reservations;
+
+import org.schedule.events.ScheduleChangedEvent;
+import org.schedule.repository.ScheduleMetadataRepository;
+import org.schedule.util.SemesterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Устаревшие по TTL данные отдаются сразу, а обновление из MIREA ставится в фоновую очередь,
+// не больше одного на сущность. Время последнего обновления хранится в памяти и
+// перечитывается из метаданных после изменений расписания
+@Service
+public class ScheduleFreshnessService {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleFreshnessService.class);
+
+    private final ScheduleService scheduleService;
+    private final ScheduleMetadataRepository metadataRepository;
+    private final Executor refreshExecutor;
+    private final long ttlSeconds;
+    private final Duration retryDelay;
+
+    private final ConcurrentHashMap<String, EntityState> states = new ConcurrentHashMap<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong refreshesQueued = new AtomicLong();
+    private final AtomicLong refreshesCompleted = new AtomicLong();
+    private final AtomicLong refreshesFailed = new AtomicLong();
+    private final AtomicLong refreshesRejected = new AtomicLong();
+
+    public ScheduleFreshnessService(ScheduleService scheduleService,
+                                    ScheduleMetadataRepository metadataRepository,
+                                    @Qualifier("refreshExecutor") Executor refreshExecutor,
+                                    @Value("${app.schedule.freshness.ttl-minutes:360}") long ttlMinutes,
+                                    @Value("${app.schedule.freshness.retry-minutes:10}") long retryMinutes) {
+        this.scheduleService = scheduleService;
+        this.metadataRepository = metadataRepository;
+        this.refreshExecutor = refreshExecutor;
+        this.ttlSeconds = Duration.ofMinutes(ttlMinutes).getSeconds();
+        this.retryDelay = Duration.ofMinutes(retryMinutes);
+    }
+
+    public Freshness check(Collection<String> entityNames) {
+        String semester = SemesterUtils.getCurrentSemester();
+        LocalDateTime now = LocalDateTime.now();
+
+        long maxAge = -1;
+        boolean stale = false;
+        boolean upstreamUnavailable = false;
+        for (String entity : entityNames) {
+            String entityName = entity.trim();
+            if (scheduleService.isServedFromUpstreamFallback(entityName)) {
+                stale = true;
+                upstreamUnavailable = true;
+            }
+
+            EntityState state = currentState(entityName, semester);
+            if (state.lastUpdated == null) {
+                continue;
+            }
+
+            long age = Math.max(0, Duration.between(state.lastUpdated, now).getSeconds());
+            maxAge = Math.max(maxAge, age);
+            if (age >= ttlSeconds) {
+                stale = true;
+                queueRefresh(entityName, semester, state, now);
+            }
+        }
+
+        if (stale) {
+            staleServed.incrementAndGet();
+        }
+        return new Freshness(maxAge, stale, upstreamUnavailable);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isAllEntities()) {
+            states.clear();
+            return;
+        }
+        String semester = SemesterUtils.getCurrentSemester();
+        for (String entityName : event.getEntityNames()) {
+            states.remove(key(entityName, semester));
+        }
+    }
+
+    private EntityState currentState(String entityName, String semester) {
+        String key = key(entityName, semester);
+        EntityState state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+
+        EntityState loaded = new EntityState(metadataRepository.findLastUpdated(entityName, semester), null);
+        if (loaded.lastUpdated == null) {
+            // еще не загружена: первый запрос сам выполнит загрузку, запоминать нечего
+            return loaded;
+        }
+        EntityState existing = states.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void queueRefresh(String entityName, String semester, EntityState state, LocalDateTime now) {
+        if (state.retryAfter != null && now.isBefore(state.retryAfter)) {
+            return;
+        }
+        if (!queued.add(entityName)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> refresh(entityName, semester));
+            refreshesQueued.incrementAndGet();
+            log.debug("{} устарел ({}), обновление поставлено в очередь", entityName, state.lastUpdated);
+        } catch (RejectedExecutionException e) {
+            queued.remove(entityName);
+            refreshesRejected.incrementAndGet();
+            log.warn("Очередь фоновых обновлений заполнена, {} будет обновлен позже", entityName);
+        }
+    }
+
+    private void refresh(String entityName, String semester) {
+        String key = key(entityName, semester);
+        try {
+            scheduleService.refreshEntity(entityName);
+            states.put(key, new EntityState(LocalDateTime.now(), null));
+            refreshesCompleted.incrementAndGet();
+        } catch (Exception e) {
+            refreshesFailed.incrementAndGet();
+            EntityState previous = states.get(key);
+            states.put(key, new EntityState(previous != null ? previous.lastUpdated : null,
+                    LocalDateTime.now().plus(retryDelay)));
+            log.warn("Фоновое обновление {} не удалось, повтор не раньше чем через {} мин: {}",
+                    entityName, retryDelay.toMinutes(), e.getMessage());
+        } finally {
+            queued.remove(entityName);
+        }
+    }
+
+    private String key(String entityName, String semester) {
+        return semester + ":" + entityName.trim();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("trackedEntities", states.size());
+        stats.put("queued", queued.size());
+        stats.put("staleServed", staleServed.get());
+        stats.put("refreshesQueued", refreshesQueued.get());
+        stats.put("refreshesCompleted", refreshesCompleted.get());
+        stats.put("refreshesFailed", refreshesFailed.get());
+        stats.put("refreshesRejected", refreshesRejected.get());
+        return stats;
+    }
+
+    private static class EntityState {
+        private final LocalDateTime lastUpdated;
+        private final LocalDateTime retryAfter;
+
+        private EntityState(LocalDateTime lastUpdated, LocalDateTime retryAfter) {
+            this.lastUpdated = lastUpdated;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class Freshness {
+        private final long ageSeconds;
+        private final boolean stale;
+        private final boolean upstreamUnavailable;
+
+        public Freshness(long ageSeconds, boolean stale, boolean upstreamUnavailable) {
+            this.ageSeconds = ageSeconds;
+            this.stale = stale;
+            this.upstreamUnavailable = upstreamUnavailable;
+        }
+
+        public long getAgeSeconds() { return ageSeconds; }
+        public boolean isStale() { return stale; }
+        public boolean isUpstreamUnavailable() { return upstreamUnavailable; }
+        public boolean isKnown() { return ageSeconds >= 0 || stale; }
+    }
+}
@@ -1,21 +1,41 @@
 package org.schedule.reservations;
 
+import org.schedule.entity.ScheduleOccurrenceDto;
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.apidata.ResponseDto;
 import org.schedule.entity.forBD.EntityType;
 import org.schedule.entity.forBD.ScheduleMetadataEntity;
+import org.schedule.entity.forBD.UpstreamFeedStateEntity;
 import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.events.ScheduleChangedEvent;
 import org.schedule.mapping.CheckDataInMemory;
 import org.schedule.mapping.DataGetter;
+import org.schedule.mapping.LessonOccurrenceIndex;
+import org.schedule.mapping.SchedulePayloadWriter;
+import org.schedule.mapping.ScheduleProjectionReader;
 import org.schedule.repository.LessonRepository;
 import org.schedule.repository.ScheduleMetadataRepository;
+import org.schedule.repository.UpstreamFeedStateRepository;
 import org.schedule.util.SemesterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ScheduleReadService {
@@ -25,79 +45,131 @@ public class ScheduleReadService {
     private final CheckDataInMemory checkHelper;
     private final ScheduleMetadataRepository metadataRepository;
     private final LessonRepository lessonRepository;
+    private final UpstreamFeedStateRepository feedStateRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduleProjectionReader projectionReader;
+    private final SchedulePayloadWriter payloadWriter;
+    private final LessonOccurrenceIndex occurrenceIndex;
 
     public ScheduleReadService(DataGetter dataGetter,
                                CheckDataInMemory checkHelper,
                                ScheduleMetadataRepository metadataRepository,
-                               LessonRepository lessonRepository) {
+                               LessonRepository lessonRepository,
+                               UpstreamFeedStateRepository feedStateRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               ScheduleProjectionReader projectionReader,
+                               SchedulePayloadWriter payloadWriter,
+                               LessonOccurrenceIndex occurrenceIndex) {
         this.dataGetter = dataGetter;
         this.checkHelper = checkHelper;
         this.metadataRepository = metadataRepository;
         this.lessonRepository = lessonRepository;
+        this.feedStateRepository = feedStateRepository;
+        this.eventPublisher = eventPublisher;
+        this.projectionReader = projectionReader;
+        this.payloadWriter = payloadWriter;
+        this.occurrenceIndex = occurrenceIndex;
     }
 
     @Transactional(readOnly = true)
     public List<LessonEntity> getLessonsFromCacheOrDatabase(List<String> entityList) {
         log.info("Получение занятий из кэша/БД для {} сущностей", entityList.size());
 
-        if (entityList.isEmpty()) {
-            throw new IllegalArgumentException("Список сущностей не может быть пустым");
-        }
+        String currentSemester = SemesterUtils.getCurrentSemester();
+        Map<String, LessonEntity> lessonsById = new LinkedHashMap<>();
+        classifyEntities(entityList).forEach((entityType, requested) -> {
+            Set<String> withMetadata = namesWithMetadata(entityType, requested.keySet(), currentSemester);
+            if (!withMetadata.isEmpty()) {
+                for (Object[] row : findLessonsByNames(entityType, withMetadata, currentSemester)) {
+                    LessonEntity lesson = (LessonEntity) row[1];
+                    lessonsById.putIfAbsent(lesson.getId(), lesson);
+                }
+            }
+        });
 
-        List<LessonEntity> finalSchedule = new ArrayList<>();
-        List<String> remainingEntities = new ArrayList<>(entityList);
+        log.info("Получено {} занятий из кэша/БД", lessonsById.size());
+        return new ArrayList<>(lessonsById.values());
+    }
+
+    // Сущности, расписание которых уже есть в БД за текущий семестр: метаданные и хотя бы одно занятие.
+    // Сами занятия не читаются - расписание собирает проекция getSchedulesByEntity
+    @Transactional(readOnly = true)
+    public Set<String> findCoveredEntities(List<String> entityList) {
+        log.info("Проверка наличия в БД расписаний {} сущностей", entityList.size());
 
         String currentSemester = SemesterUtils.getCurrentSemester();
         log.debug("Текущий семестр: {}", currentSemester);
 
-        for (String entityString : entityList) {
-            try {
-                CheckDataInMemory.EntityCheckResult checkResult = checkHelper.checkEntity(entityString);
-
-                if (!checkResult.isValid()) {
-                    log.warn("Ошибка валидации сущности: '{}', пропускаем", entityString);
-                    remainingEntities.remove(entityString);
-                    continue;
+        Set<String> coveredEntities = new HashSet<>();
+        classifyEntities(entityList).forEach((entityType, requested) -> {
+            Set<String> withMetadata = namesWithMetadata(entityType, requested.keySet(), currentSemester);
+            if (!withMetadata.isEmpty()) {
+                for (String entityName : findNamesWithLessons(entityType, withMetadata, currentSemester)) {
+                    coveredEntities.addAll(requested.getOrDefault(entityName, List.of()));
                 }
+            }
+        });
 
-                EntityType entityType = checkResult.getEntityType();
-                String entityName = checkResult.getEntityName();
-
-                Optional<ScheduleMetadataEntity> metadataOpt =
-                        metadataRepository.findByEntityTypeAndEntityNameAndSemester(
-                                entityType.name(), entityName, currentSemester);
-
-                if (metadataOpt.isPresent()) {
-                    ScheduleMetadataEntity metadata = metadataOpt.get();
-                    log.debug("Найдены метаданные: {} {}, семестр: {}, занятий: {}",
-                            entityType, entityName, metadata.getSemester(), metadata.getLessonCount());
-
-                    List<LessonEntity> lessons = dataGetter.getFromDatabase(entityType, entityName);
-                    if (!lessons.isEmpty()) {
-                        finalSchedule.addAll(lessons);
-                        remainingEntities.remove(entityString);
-                        log.debug("Данные из БД для {} {}: {} занятий", entityType, entityName, lessons.size());
-                    }
-                } else {
-                    log.debug("Метаданные не найдены для {} {} в семестре {}",
-                            entityType, entityName, currentSemester);
-
-                    List<LessonEntity> oldLessons = dataGetter.getFromDatabase(entityType, entityName);
-                    if (!oldLessons.isEmpty()) {
-                        log.info("Найдены устаревшие данные для {} {} ({} занятий), требуется обновление",
-                                entityType, entityName, oldLessons.size());
-                    }
-                }
+        log.info("Осталось сущностей для внешнего источника: {}",
+                entityList.stream().filter(entity -> !coveredEntities.contains(entity)).count());
+        return coveredEntities;
+    }
 
-            } catch (Exception e) {
-                log.error("Ошибка при получении данных для сущности: {}", entityString, e);
-            }
+    private Map<EntityType, Map<String, List<String>>> classifyEntities(List<String> entityList) {
+        if (entityList.isEmpty()) {
+            throw new IllegalArgumentException("Список сущностей не может быть пустым");
         }
 
-        log.info("Получено {} занятий из кэша/БД, осталось сущностей для внешнего источника: {}",
-                finalSchedule.size(), remainingEntities.size());
+        Map<EntityType, Map<String, List<String>>> requestedByType = new EnumMap<>(EntityType.class);
+        checkHelper.checkEntities(entityList).forEach((entityString, checkResult) -> {
+            if (!checkResult.isValid()) {
+                log.warn("Ошибка валидации сущности: '{}', пропускаем", entityString);
+                return;
+            }
+            requestedByType.computeIfAbsent(checkResult.getEntityType(), type -> new LinkedHashMap<>())
+                    .computeIfAbsent(checkResult.getEntityName(), name -> new ArrayList<>())
+                    .add(entityString);
+        });
+        return requestedByType;
+    }
+
+    private Set<String> namesWithMetadata(EntityType entityType, Set<String> names, String semester) {
+        Set<String> withMetadata = metadataRepository.findByEntityTypeAndEntityNameInAndSemester(
+                        entityType.name(), new ArrayList<>(names), semester).stream()
+                .map(ScheduleMetadataEntity::getEntityName)
+                .collect(Collectors.toSet());
+
+        names.stream()
+                .filter(name -> !withMetadata.contains(name))
+                .forEach(name -> log.debug("Метаданные не найдены для {} {} в семестре {}",
+                        entityType, name, semester));
+        return withMetadata;
+    }
+
+    private List<String> findNamesWithLessons(EntityType entityType, Set<String> names, String semester) {
+        switch (entityType) {
+            case GROUP:
+                return lessonRepository.findGroupNamesWithLessons(names, semester);
+            case TEACHER:
+                return lessonRepository.findTeacherNamesWithLessons(names, semester);
+            case ROOM:
+                return lessonRepository.findRoomNamesWithLessons(names, semester);
+            default:
+                return List.of();
+        }
+    }
 
-        return finalSchedule;
+    private List<Object[]> findLessonsByNames(EntityType entityType, Set<String> names, String semester) {
+        switch (entityType) {
+            case GROUP:
+                return lessonRepository.findByGroupNamesAndSemester(names, semester);
+            case TEACHER:
+                return lessonRepository.findByTeacherNamesAndSemester(names, semester);
+            case ROOM:
+                return lessonRepository.findByRoomNamesAndSemester(names, semester);
+            default:
+                return List.of();
+        }
     }
 
     @Transactional
@@ -108,6 +180,9 @@ public class ScheduleReadService {
         try {
             List<LessonEntity> oldLessons = dataGetter.getFromDatabase(entityType, entityName);
             if (!oldLessons.isEmpty()) {
+                ScheduleChangedEvent changedEvent = ScheduleChangedEvent.forLessons(oldLessons, entityName);
+                payloadWriter.evict(changedEvent.getEntityNames(), null);
+                eventPublisher.publishEvent(changedEvent);
                 lessonRepository.deleteAll(oldLessons);
                 log.info("Удалено {} устаревших занятий для {} {}",
                         oldLessons.size(), entityType, entityName);
@@ -121,29 +196,75 @@ public class ScheduleReadService {
         }
     }
 
+    public Map<String, List<ScheduleResponseDto>> getSchedulesByEntity(List<String> entities) {
+        log.info("Получение расписаний из БД (проекция) для {} сущностей", entities.size());
+
+        Map<EntityType, Map<String, String>> namesByType = new EnumMap<>(EntityType.class);
+        checkHelper.checkEntities(entities).forEach((entityString, checkResult) -> {
+            if (checkResult.isValid()) {
+                namesByType.computeIfAbsent(checkResult.getEntityType(), type -> new LinkedHashMap<>())
+                        .put(entityString, checkResult.getEntityName());
+            }
+        });
+
+        Map<EntityType, List<String>> entityNamesByType = new EnumMap<>(EntityType.class);
+        namesByType.forEach((entityType, names) -> entityNamesByType.put(entityType, new ArrayList<>(names.values())));
+        Map<EntityType, Map<String, List<ScheduleResponseDto>>> byType = projectionReader.readSchedules(entityNamesByType);
+
+        Map<String, List<ScheduleResponseDto>> schedules = new LinkedHashMap<>();
+        namesByType.forEach((entityType, names) -> {
+            Map<String, List<ScheduleResponseDto>> byName = byType.getOrDefault(entityType, Map.of());
+            names.forEach((entityString, entityName) ->
+                    schedules.put(entityString, byName.getOrDefault(entityName, List.of())));
+        });
+
+        log.info("Получено расписаний из БД: {}", schedules.size());
+        return schedules;
+    }
+
     @Transactional(readOnly = true)
-    public List<LessonEntity> getLessonsFromDatabase(List<String> remainingEntities) {
-        log.info("Получение занятий из БД для {} сущностей", remainingEntities.size());
-
-        List<LessonEntity> lessonsFromDb = new ArrayList<>();
-
-        for (String entityString : remainingEntities) {
-            try {
-                CheckDataInMemory.EntityCheckResult checkResult = checkHelper.checkEntity(entityString);
-                if (checkResult.isValid()) {
-                    List<LessonEntity> lessons = dataGetter.getFromDatabase(
-                            checkResult.getEntityType(),
-                            checkResult.getEntityName()
-                    );
-                    lessonsFromDb.addAll(lessons);
-                }
-            } catch (Exception e) {
-                log.error("Ошибка при получении данных из БД для сущности: {}", entityString, e);
+    public List<ScheduleOccurrenceDto> getOccurrences(EntityType entityType, String entityName,
+                                                      LocalDate from, LocalDate to) {
+        List<LessonOccurrenceIndex.Occurrence> rows = occurrenceIndex.findByResource(entityType, entityName, from, to);
+        Map<String, ScheduleResponseDto> lessons = projectionReader.readByLessonIds(
+                rows.stream().map(LessonOccurrenceIndex.Occurrence::lessonId).collect(Collectors.toSet()));
+
+        List<ScheduleOccurrenceDto> occurrences = new ArrayList<>(rows.size());
+        for (LessonOccurrenceIndex.Occurrence row : rows) {
+            ScheduleResponseDto lesson = lessons.get(row.lessonId());
+            if (lesson == null) {
+                continue;
             }
+            occurrences.add(new ScheduleOccurrenceDto(lesson.getDiscipline(), lesson.getLessonType(), row.date(),
+                    row.startTime(), row.endTime(), lesson.getRooms(), lesson.getTeachers(), lesson.getGroups(),
+                    lesson.getGroupsSummary(), lesson.getDescription()));
+        }
+
+        occurrences.sort(Comparator.comparing(ScheduleOccurrenceDto::getStartTime)
+                .thenComparing(ScheduleOccurrenceDto::getDiscipline, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        log.debug("Из индекса дат для {} получено {} занятий", entityName, occurrences.size());
+        return occurrences;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, UpstreamFeedStateEntity> findFeedStates(List<ResponseDto> responseDtos) {
+        Set<Long> scheduleIds = responseDtos.stream()
+                .map(ResponseDto::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        if (scheduleIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, UpstreamFeedStateEntity> states = new HashMap<>();
+        for (UpstreamFeedStateEntity state : feedStateRepository.findByScheduleIdIn(scheduleIds)) {
+            states.put(state.getScheduleId(), state);
         }
 
-        log.info("Получено {} занятий из БД", lessonsFromDb.size());
-        return lessonsFromDb;
+        log.debug("Найдено {} сохраненных состояний iCal лент из {}", states.size(), scheduleIds.size());
+        return states;
     }
 
     public boolean needsUpdate(EntityType entityType, String entityName) {
@@ -165,4 +286,4 @@ public class ScheduleReadService {
 
         return isOutdated;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package org.schedule.reservations;
+
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.events.ScheduleChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ScheduleResponseCache {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleResponseCache.class);
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    private final LinkedHashMap<CacheKey, List<ScheduleResponseDto>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentWeight;
+
+    // поколение сущности меняется при ее инвалидации; загрузка, начатая до нее, не попадет в кэш.
+    // Загрузки других сущностей при этом не отклоняются
+    private final AtomicLong generationSequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> generations = new ConcurrentHashMap<>();
+    private volatile long clearedGeneration;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong rejectedPuts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ScheduleResponseCache(@Value("${app.cache.schedule.max-entries:2000}") int maxEntries,
+                                 @Value("${app.cache.schedule.max-weight:200000}") long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public Optional<List<ScheduleResponseDto>> get(String entityName, String semester) {
+        List<ScheduleResponseDto> value;
+        synchronized (entries) {
+            value = entries.get(new CacheKey(entityName, semester));
+        }
+
+        if (value == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(value);
+    }
+
+    public long currentGeneration(String entityName) {
+        return Math.max(generations.getOrDefault(entityName, 0L), clearedGeneration);
+    }
+
+    public void put(String entityName, String semester, List<ScheduleResponseDto> value, long loadGeneration) {
+        int weight = Math.max(1, value.size());
+        if (weight > maxWeight) {
+            return;
+        }
+
+        synchronized (entries) {
+            if (currentGeneration(entityName) != loadGeneration) {
+                rejectedPuts.incrementAndGet();
+                log.debug("Расписание {} изменилось во время загрузки, в кэш не кладем", entityName);
+                return;
+            }
+
+            List<ScheduleResponseDto> previous = entries.put(new CacheKey(entityName, semester), List.copyOf(value));
+            if (previous != null) {
+                currentWeight -= Math.max(1, previous.size());
+            }
+            currentWeight += weight;
+            puts.incrementAndGet();
+
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<CacheKey, List<ScheduleResponseDto>>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentWeight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<CacheKey, List<ScheduleResponseDto>> eldest = iterator.next();
+            currentWeight -= Math.max(1, eldest.getValue().size());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isAllEntities()) {
+            invalidateAll();
+            return;
+        }
+
+        int removed = 0;
+        synchronized (entries) {
+            for (String entityName : event.getEntityNames()) {
+                generations.put(entityName, generationSequence.incrementAndGet());
+            }
+            Iterator<Map.Entry<CacheKey, List<ScheduleResponseDto>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<CacheKey, List<ScheduleResponseDto>> entry = iterator.next();
+                if (event.getEntityNames().contains(entry.getKey().entityName())) {
+                    currentWeight -= Math.max(1, entry.getValue().size());
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+
+        invalidations.addAndGet(removed);
+        log.debug("Инвалидировано {} записей кэша расписаний по {} сущностям", removed, event.getEntityNames().size());
+    }
+
+    public void invalidateAll() {
+        int removed;
+        synchronized (entries) {
+            clearedGeneration = generationSequence.incrementAndGet();
+            generations.clear();
+            removed = entries.size();
+            entries.clear();
+            currentWeight = 0;
+        }
+
+        invalidations.addAndGet(removed);
+        log.info("Кэш расписаний полностью очищен, удалено {} записей", removed);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            stats.put("weight", currentWeight);
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("missRatio", requests == 0 ? 0.0 : (double) missCount / requests);
+        stats.put("puts", puts.get());
+        stats.put("rejectedPuts", rejectedPuts.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private record CacheKey(String entityName, String semester) {
+    }
+}
@@ -1,20 +1,35 @@
 package org.schedule.reservations;
 
+import org.schedule.entity.ScheduleOccurrenceDto;
 import org.schedule.entity.ScheduleResponseDto;
 import org.schedule.entity.apidata.ResponseDto;
 import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.SchedulePayloadEntity;
+import org.schedule.entity.forBD.UpstreamFeedStateEntity;
 import org.schedule.entity.forBD.basic.LessonEntity;
-import org.schedule.entity.schedule.ScheduleDto;
+import org.schedule.entity.schedule.FeedFetchResult;
+import org.schedule.errors.UpstreamUnavailableException;
+import org.schedule.mapping.RoomAvailabilityIndex;
+import org.schedule.mapping.SaverToMemory;
 import org.schedule.mapping.ScheduleMapper;
-import org.schedule.entity.forBD.basic.RoomEntity;
-import org.schedule.entity.forBD.basic.TeacherEntity;
-import org.schedule.entity.forBD.basic.GroupEntity;
+import org.schedule.mapping.SchedulePayloadWriter;
+import org.schedule.repository.SchedulePayloadRepository;
 import org.schedule.util.SemesterUtils;
+import org.schedule.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,16 +41,37 @@ public class ScheduleService {
     private final ScheduleWriteService writeService;
     private final ScheduleMapper mapper;
 
-    private static final String MIREA_API_URL = "https://schedule-of.mirea.ru/schedule/api/search?match=";
+    private final String searchUrl;
+
+    private final Executor ingestExecutor;
+    private final ScheduleResponseCache responseCache;
+    private final SchedulePayloadRepository payloadRepository;
+    private final SchedulePayloadWriter payloadWriter;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final SingleFlight<String, Integer> ingestFlights = new SingleFlight<>();
+    // сущности, отданные из ранее сохраненных данных, потому что MIREA был недоступен
+    private final ConcurrentHashMap<String, LocalDateTime> upstreamFallbacks = new ConcurrentHashMap<>();
 
     public ScheduleService(ScheduleMapper scheduleMapper,
                            ScheduleReadService readService,
                            ScheduleWriteService writeService,
-                           ScheduleMapper mapper) {
+                           ScheduleMapper mapper,
+                           @Qualifier("ingestExecutor") Executor ingestExecutor,
+                           ScheduleResponseCache responseCache,
+                           SchedulePayloadRepository payloadRepository,
+                           SchedulePayloadWriter payloadWriter,
+                           RoomAvailabilityIndex roomAvailabilityIndex,
+                           @Value("${app.upstream.search-url:https://schedule-of.mirea.ru/schedule/api/search?match=}") String searchUrl) {
         this.scheduleMapper = scheduleMapper;
         this.readService = readService;
         this.writeService = writeService;
         this.mapper = mapper;
+        this.ingestExecutor = ingestExecutor;
+        this.responseCache = responseCache;
+        this.payloadRepository = payloadRepository;
+        this.payloadWriter = payloadWriter;
+        this.roomAvailabilityIndex = roomAvailabilityIndex;
+        this.searchUrl = searchUrl;
     }
     public List<ScheduleResponseDto> getScheduleForGroups(List<String> entityList) {
         log.info("Вход в getScheduleForGroups с entityList: {} элементов", entityList.size());
@@ -45,80 +81,313 @@ public class ScheduleService {
         }
 
         try {
-            List<LessonEntity> lessonsFromDb = readService.getLessonsFromCacheOrDatabase(entityList);
-
-            List<String> remainingEntities = getRemainingEntities(entityList, lessonsFromDb);
-
-            if (!remainingEntities.isEmpty()) {
-                log.info("Получение данных из внешнего источника для {} сущностей", remainingEntities.size());
+            String currentSemester = SemesterUtils.getCurrentSemester();
 
-                EntityType entityType = determineEntityType(remainingEntities.get(0));
-                String currentSemester = SemesterUtils.getCurrentSemester();
-
-                boolean needsUpdate = readService.needsUpdate(entityType, remainingEntities.get(0));
-                if (needsUpdate) {
-                    log.info("Обнаружены устаревшие данные для {} {}, выполняем очистку",
-                            entityType, remainingEntities.get(0));
-                    readService.cleanupOutdatedLessons(entityType, remainingEntities.get(0), "LEGACY");
+            Map<String, List<ScheduleResponseDto>> schedules = new HashMap<>();
+            List<String> missedEntities = new ArrayList<>();
+            for (String entity : entityList) {
+                Optional<List<ScheduleResponseDto>> cached = responseCache.get(entity, currentSemester);
+                if (cached.isPresent()) {
+                    schedules.put(entity, cached.get());
+                } else if (!missedEntities.contains(entity)) {
+                    missedEntities.add(entity);
                 }
-
-                List<ResponseDto> response = scheduleMapper.mapToResponseDto(remainingEntities, MIREA_API_URL);
-                List<ScheduleDto> schedule = scheduleMapper.mapToScheduleDto(response);
-                List<LessonEntity> parsedLessons = scheduleMapper.parseStringData(schedule);
-                log.debug("Распаршено {} занятий", parsedLessons.size());
-
-                writeService.saveLessonsAndUpdateIds(parsedLessons, response, entityType, remainingEntities.get(0));
             }
 
-            List<LessonEntity> allLessonsFromDb = readService.getLessonsFromDatabase(entityList);
+            if (!missedEntities.isEmpty()) {
+                schedules.putAll(loadSchedules(missedEntities, currentSemester));
+            }
 
-            List<ScheduleResponseDto> result = mapper.toResponseDtoList(allLessonsFromDb);
+            List<ScheduleResponseDto> result = mergeSchedules(entityList, schedules);
 
             log.info("Выход из getScheduleForGroups, результат: {} занятий", result.size());
             return result;
 
+        } catch (RestClientException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Критическая ошибка в getScheduleForGroups", e);
             throw new RuntimeException("Не удалось получить расписание", e);
         }
     }
 
-    private List<String> getRemainingEntities(List<String> requestedEntities, List<LessonEntity> foundLessons) {
-        if (foundLessons.isEmpty()) {
-            return new ArrayList<>(requestedEntities);
+    public List<ScheduleOccurrenceDto> getScheduleWindow(String entityString, LocalDate from, LocalDate to) {
+        log.info("Вход в getScheduleWindow: {} с {} по {}", entityString, from, to);
+
+        String entityName = entityString.trim();
+        EntityType entityType = determineEntityType(entityName);
+        Map<String, RestClientException> upstreamFailures = Map.of();
+        if (readService.needsUpdate(entityType, entityName)) {
+            upstreamFailures = ingestEntities(List.of(entityName));
+        }
+
+        List<ScheduleOccurrenceDto> occurrences = readService.getOccurrences(entityType, entityName, from, to);
+        if (!upstreamFailures.isEmpty()) {
+            if (occurrences.isEmpty()) {
+                throw upstreamFailures.get(entityName);
+            }
+            markFallback(upstreamFailures.keySet());
         }
 
+        log.info("Выход из getScheduleWindow, занятий в окне: {}", occurrences.size());
+        return occurrences;
+    }
+
+    public List<String> findFreeRooms(LocalDateTime from, LocalDateTime to, String building) {
+        long startTime = System.nanoTime();
+        List<String> freeRooms = roomAvailabilityIndex.findFreeRooms(from, to, building);
+
+        log.debug("Свободных аудиторий с {} по {} (корпус: {}): {}, поиск занял {} мкс",
+                from, to, building, freeRooms.size(), (System.nanoTime() - startTime) / 1000);
+        return freeRooms;
+    }
+
+    public SchedulePayloadEntity getSchedulePayload(String entityString) {
+        String entityName = entityString.trim();
         String currentSemester = SemesterUtils.getCurrentSemester();
-        Set<String> coveredEntities = new HashSet<>();
 
-        for (LessonEntity lesson : foundLessons) {
-            if (!currentSemester.equals(lesson.getSemester())) {
-                continue;
+        Optional<SchedulePayloadEntity> stored = payloadRepository.findByEntityNameAndSemester(entityName, currentSemester)
+                .filter(payload -> payload.getBinaryBody() != null);
+        if (stored.isPresent()) {
+            log.debug("Отдаем сохраненный payload для {}, ETag {}", entityName, stored.get().getEtag());
+            return stored.get();
+        }
+
+        long generation = responseCache.currentGeneration(entityName);
+        List<ScheduleResponseDto> schedule = getScheduleForGroups(List.of(entityName));
+
+        SchedulePayloadEntity payload = payloadWriter.build(determineEntityType(entityName), entityName,
+                currentSemester, schedule);
+        if (!schedule.isEmpty() && responseCache.currentGeneration(entityName) == generation
+                && !isServedFromUpstreamFallback(entityName)) {
+            payloadWriter.storeIfAbsent(payload);
+        }
+        return payload;
+    }
+
+    // Одно и то же занятие, найденное через группу и через преподавателя, отдается один раз
+    // с перечнем совпавших сущностей. DTO из кэша общие, поэтому для ответа делаются копии
+    private List<ScheduleResponseDto> mergeSchedules(List<String> entityList,
+                                                     Map<String, List<ScheduleResponseDto>> schedules) {
+        List<String> entities = entityList.stream().distinct().collect(Collectors.toList());
+        if (entities.size() == 1) {
+            return new ArrayList<>(schedules.getOrDefault(entities.get(0), List.of()));
+        }
+
+        Map<Object, ScheduleResponseDto> merged = new LinkedHashMap<>();
+        int total = 0;
+        for (String entity : entities) {
+            for (ScheduleResponseDto lesson : schedules.getOrDefault(entity, List.of())) {
+                total++;
+                Object key = lesson.getLessonId() != null ? lesson.getLessonId() : lesson;
+                merged.computeIfAbsent(key, k -> copyWithMatches(lesson))
+                        .getMatchedEntities().add(entity);
             }
+        }
+
+        if (merged.size() < total) {
+            log.debug("Слияние расписаний {} сущностей: {} -> {} занятий", entities.size(), total, merged.size());
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private ScheduleResponseDto copyWithMatches(ScheduleResponseDto lesson) {
+        ScheduleResponseDto copy = new ScheduleResponseDto(lesson.getDiscipline(), lesson.getLessonType(),
+                lesson.getStartTime(), lesson.getEndTime(), lesson.getRooms(), lesson.getTeachers(),
+                lesson.getGroups(), lesson.getGroupsSummary(), lesson.getDescription(),
+                lesson.getRecurrence(), lesson.getExceptions());
+        copy.setLessonId(lesson.getLessonId());
+        copy.setMatchedEntities(new ArrayList<>(2));
+        return copy;
+    }
+
+    private Map<String, List<ScheduleResponseDto>> loadSchedules(List<String> entities, String semester) {
+        log.debug("Промах кэша расписаний для {} сущностей", entities.size());
+
+        Set<String> coveredEntities = readService.findCoveredEntities(entities);
+
+        List<String> remainingEntities = entities.stream()
+                .filter(entity -> !coveredEntities.contains(entity))
+                .collect(Collectors.toList());
+
+        Map<String, RestClientException> upstreamFailures = Map.of();
+        if (!remainingEntities.isEmpty()) {
+            log.info("Получение данных из внешнего источника для {} сущностей", remainingEntities.size());
+            upstreamFailures = ingestEntities(remainingEntities);
+        }
+
+        Map<String, Long> generations = new HashMap<>();
+        for (String entity : entities) {
+            generations.put(entity, responseCache.currentGeneration(entity));
+        }
+        Map<String, List<ScheduleResponseDto>> schedules = readService.getSchedulesByEntity(entities);
 
-            if (lesson.getGroups() != null) {
-                lesson.getGroups().stream()
-                        .map(GroupEntity::getGroupName)
-                        .forEach(coveredEntities::add);
+        if (!upstreamFailures.isEmpty()) {
+            // MIREA недоступен: отдаем то, что уже есть в БД, с пометкой об устаревании;
+            // ошибка - только если отдать нечего ни по одной сущности
+            if (schedules.values().stream().allMatch(List::isEmpty)) {
+                throw upstreamFailures.values().iterator().next();
             }
-            if (lesson.getTeachers() != null) {
-                lesson.getTeachers().stream()
-                        .map(TeacherEntity::getFullName)
-                        .forEach(coveredEntities::add);
+            markFallback(upstreamFailures.keySet());
+            log.warn("MIREA недоступен, {} сущностей отданы из сохраненных данных", upstreamFailures.size());
+        }
+
+        Set<String> failedEntities = upstreamFailures.keySet();
+        schedules.forEach((entity, dtos) -> {
+            if (!dtos.isEmpty() && !failedEntities.contains(entity.trim())) {
+                responseCache.put(entity, semester, dtos, generations.get(entity));
             }
-            if (lesson.getRooms() != null) {
-                lesson.getRooms().stream()
-                        .map(RoomEntity::getRoomName)
-                        .forEach(coveredEntities::add);
+        });
+
+        return schedules;
+    }
+
+    // Ошибки обращения к MIREA возвращаются по сущностям, чтобы вызывающий мог отдать сохраненные данные
+    private Map<String, RestClientException> ingestEntities(List<String> entities) {
+        String currentSemester = SemesterUtils.getCurrentSemester();
+
+        Map<String, CompletableFuture<Integer>> flights = new LinkedHashMap<>();
+        for (String entity : entities) {
+            String entityName = entity.trim();
+            flights.putIfAbsent(entityName, ingestFlight(determineEntityType(entityName), entityName, currentSemester));
+        }
+
+        Map<String, RestClientException> failures = new LinkedHashMap<>();
+        flights.forEach((entityName, flight) -> {
+            try {
+                awaitFlight(flight);
+            } catch (RestClientException e) {
+                failures.put(entityName, e);
             }
+        });
+        return failures;
+    }
+
+    private void markFallback(Collection<String> entityNames) {
+        LocalDateTime now = LocalDateTime.now();
+        entityNames.forEach(entityName -> upstreamFallbacks.put(entityName, now));
+    }
+
+    public boolean isServedFromUpstreamFallback(String entityName) {
+        return upstreamFallbacks.containsKey(entityName.trim());
+    }
+
+    // Фоновая загрузка сущности с известным типом; запросы пользователей к той же сущности
+    // присоединяются к этой загрузке, а не запускают свою
+    public int prefetchEntity(EntityType entityType, String entityName) {
+        return awaitFlight(ingestFlight(entityType, entityName.trim(), SemesterUtils.getCurrentSemester()));
+    }
+
+    private CompletableFuture<Integer> ingestFlight(EntityType entityType, String entityName, String semester) {
+        String key = entityType.name() + ":" + entityName + ":" + semester;
+        return ingestFlights.execute(key, () -> ingestEntity(entityType, entityName), ingestExecutor);
+    }
+
+    private int awaitFlight(CompletableFuture<Integer> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
         }
+    }
 
-        List<String> remaining = requestedEntities.stream()
-                .filter(entity -> !coveredEntities.contains(entity))
+    private int ingestEntity(EntityType entityType, String entityName) {
+        if (!readService.needsUpdate(entityType, entityName)) {
+            log.debug("{} {} уже загружен параллельным запросом, пропускаем", entityType, entityName);
+            upstreamFallbacks.remove(entityName);
+            return 0;
+        }
+
+        // сначала MIREA, потом запись: при недоступном источнике старые данные остаются для отдачи
+        List<ResponseDto> response = scheduleMapper.mapToResponseDto(List.of(entityName), searchUrl);
+        List<FeedFetchResult> feeds = scheduleMapper.fetchFeeds(response, Map.of());
+        if (!feeds.isEmpty() && feeds.stream().allMatch(FeedFetchResult::isFailed)) {
+            throw new UpstreamUnavailableException("Не удалось получить ни одной iCal ленты для " + entityName);
+        }
+
+        List<LessonEntity> parsedLessons = collectChangedLessons(feeds);
+        log.debug("Распаршено {} занятий для {} {}", parsedLessons.size(), entityType, entityName);
+
+        // сохраненные занятия сравниваются с полученными: пишутся только вставки, изменения и удаления
+        writeService.syncLessonsAndUpdateIds(parsedLessons, response, feeds, entityType, entityName,
+                feeds.stream().noneMatch(FeedFetchResult::isFailed));
+        upstreamFallbacks.remove(entityName);
+        return parsedLessons.size();
+    }
+
+    public Map<String, Object> getIngestStats() {
+        Map<String, Object> stats = new HashMap<>(ingestFlights.getStats());
+        stats.put("upstreamFallbacks", upstreamFallbacks.size());
+        return stats;
+    }
+
+    public RefreshResult refreshEntity(String entityString) {
+        log.info("Вход в refreshEntity для: {}", entityString);
+
+        if (entityString == null || entityString.trim().isEmpty()) {
+            throw new IllegalArgumentException("Строка сущности не может быть пустой");
+        }
+
+        String entityName = entityString.trim();
+        EntityType entityType = determineEntityType(entityName);
+
+        List<ResponseDto> response = scheduleMapper.mapToResponseDto(List.of(entityName), searchUrl);
+
+        boolean hasCurrentData = !readService.needsUpdate(entityType, entityName);
+        Map<Long, UpstreamFeedStateEntity> knownStates = hasCurrentData
+                ? readService.findFeedStates(response)
+                : Map.of();
+
+        List<FeedFetchResult> feeds = scheduleMapper.fetchFeeds(response, knownStates);
+
+        long changedCount = feeds.stream().filter(FeedFetchResult::isChanged).count();
+        long failedCount = feeds.stream().filter(FeedFetchResult::isFailed).count();
+        long unchangedCount = feeds.size() - changedCount - failedCount;
+
+        SaverToMemory.BatchSaveResult saveResult = null;
+        List<LessonEntity> lessons = List.of();
+        if (changedCount == 0 && failedCount == 0 && !feeds.isEmpty()) {
+            writeService.markUnchanged(feeds, entityType, entityName);
+        } else if (changedCount > 0) {
+            // синхронизации нужен полный набор занятий сущности, поэтому неизменившиеся ленты перечитываются
+            List<FeedFetchResult> syncFeeds = unchangedCount > 0 ? refetchUnchangedFeeds(feeds) : feeds;
+            lessons = collectChangedLessons(syncFeeds);
+            saveResult = writeService.syncLessonsAndUpdateIds(lessons, response, syncFeeds, entityType, entityName,
+                    syncFeeds.stream().noneMatch(FeedFetchResult::isFailed));
+        }
+
+        RefreshResult result = new RefreshResult(entityName, (int) changedCount, (int) unchangedCount,
+                (int) failedCount, lessons.size(),
+                saveResult != null ? saveResult.getInsertedCount() : 0,
+                saveResult != null ? saveResult.getUpdatedCount() : 0,
+                saveResult != null ? saveResult.getDeletedCount() : 0,
+                saveResult != null ? saveResult.getUnchangedCount() : 0);
+        log.info("Выход из refreshEntity: {}", result);
+        return result;
+    }
+
+    private List<FeedFetchResult> refetchUnchangedFeeds(List<FeedFetchResult> feeds) {
+        List<ResponseDto> unchangedSources = feeds.stream()
+                .filter(feed -> !feed.isChanged() && !feed.isFailed())
+                .map(FeedFetchResult::getSource)
                 .collect(Collectors.toList());
+        Iterator<FeedFetchResult> refetched = scheduleMapper.fetchFeeds(unchangedSources, Map.of()).iterator();
 
-        log.debug("Непокрытые сущности: {}/{}", remaining.size(), requestedEntities.size());
-        return remaining;
+        List<FeedFetchResult> result = new ArrayList<>(feeds.size());
+        for (FeedFetchResult feed : feeds) {
+            result.add(feed.isChanged() || feed.isFailed() ? feed : refetched.next());
+        }
+        return result;
+    }
+
+    private List<LessonEntity> collectChangedLessons(List<FeedFetchResult> feeds) {
+        List<LessonEntity> lessons = new ArrayList<>();
+        for (FeedFetchResult feed : feeds) {
+            if (feed.isChanged()) {
+                lessons.addAll(feed.getLessons());
+            }
+        }
+        return lessons;
     }
 
     private EntityType determineEntityType(String entityString) {
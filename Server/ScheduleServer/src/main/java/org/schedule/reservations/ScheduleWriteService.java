@@ -3,6 +3,7 @@ package org.schedule.reservations;
 import org.schedule.entity.apidata.ResponseDto;
 import org.schedule.entity.forBD.EntityType;
 import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.entity.schedule.FeedFetchResult;
 import org.schedule.mapping.SaverToMemory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,16 +25,54 @@ public class ScheduleWriteService {
     @Transactional
     public void saveLessonsAndUpdateIds(List<LessonEntity> lessons, List<ResponseDto> responseDtos,
                                         EntityType entityType, String entityName) {
+        saveLessonsAndUpdateIds(lessons, responseDtos, List.of(), entityType, entityName);
+    }
+
+    @Transactional
+    public void saveLessonsAndUpdateIds(List<LessonEntity> lessons, List<ResponseDto> responseDtos,
+                                        List<FeedFetchResult> feeds,
+                                        EntityType entityType, String entityName) {
         log.info("Сохранение занятий и обновление ID из API, занятий: {}, объектов: {}, тип: {}, имя: {}",
                 lessons.size(), responseDtos.size(), entityType, entityName);
 
         try {
-            saver.saveLessonsWithErrorHandling(lessons, entityType.name(), entityName);
+            saver.saveLessonsBatch(lessons, entityType.name(), entityName);
             saver.updateAllIdsFromApi(responseDtos);
+            saver.saveFeedStates(feeds);
             log.info("Успешно сохранено занятий и обновлены ID");
         } catch (Exception e) {
             log.error("Ошибка при сохранении занятий и обновлении ID", e);
             throw new RuntimeException("Не удалось сохранить данные", e);
         }
     }
+
+    @Transactional
+    public SaverToMemory.BatchSaveResult syncLessonsAndUpdateIds(List<LessonEntity> lessons,
+                                                                 List<ResponseDto> responseDtos,
+                                                                 List<FeedFetchResult> feeds,
+                                                                 EntityType entityType, String entityName,
+                                                                 boolean completeSet) {
+        log.info("Синхронизация занятий и обновление ID из API, занятий: {}, объектов: {}, тип: {}, имя: {}",
+                lessons.size(), responseDtos.size(), entityType, entityName);
+
+        try {
+            SaverToMemory.BatchSaveResult result = saver.syncEntityLessons(lessons, entityType.name(), entityName, completeSet);
+            saver.updateAllIdsFromApi(responseDtos);
+            saver.saveFeedStates(feeds);
+            log.info("Успешно синхронизированы занятия и обновлены ID");
+            return result;
+        } catch (Exception e) {
+            log.error("Ошибка при синхронизации занятий и обновлении ID", e);
+            throw new RuntimeException("Не удалось синхронизировать данные", e);
+        }
+    }
+
+    @Transactional
+    public void markUnchanged(List<FeedFetchResult> feeds, EntityType entityType, String entityName) {
+        log.info("Расписание {} {} не изменилось в источнике, обновляем только отметку времени",
+                entityType, entityName);
+
+        saver.saveFeedStates(feeds);
+        saver.touchScheduleMetadata(entityType.name(), entityName);
+    }
 }
\ No newline at end of file
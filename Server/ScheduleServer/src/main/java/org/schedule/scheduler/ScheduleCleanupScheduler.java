@@ -1,11 +1,14 @@
 package org.schedule.scheduler;
 
 import org.schedule.entity.forBD.ScheduleMetadataEntity;
+import org.schedule.events.ScheduleChangedEvent;
+import org.schedule.mapping.SchedulePayloadWriter;
 import org.schedule.repository.LessonRepository;
 import org.schedule.repository.ScheduleMetadataRepository;
 import org.schedule.util.SemesterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -22,11 +25,17 @@ public class ScheduleCleanupScheduler {
 
     private final LessonRepository lessonRepository;
     private final ScheduleMetadataRepository metadataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulePayloadWriter payloadWriter;
 
     public ScheduleCleanupScheduler(LessonRepository lessonRepository,
-                                    ScheduleMetadataRepository metadataRepository) {
+                                    ScheduleMetadataRepository metadataRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    SchedulePayloadWriter payloadWriter) {
         this.lessonRepository = lessonRepository;
         this.metadataRepository = metadataRepository;
+        this.eventPublisher = eventPublisher;
+        this.payloadWriter = payloadWriter;
     }
 
     @Scheduled(cron = "0 0 3 * * ?")
@@ -43,6 +52,8 @@ public class ScheduleCleanupScheduler {
             cleanupOldLessons(currentSemester);
             cleanupOutdatedMetadata(currentSemester);
             recalculateAllMetadataCounts();
+            payloadWriter.evictAll();
+            eventPublisher.publishEvent(ScheduleChangedEvent.all());
             printStatistics();
 
             long duration = System.currentTimeMillis() - startTime;
@@ -0,0 +1,58 @@
+package org.schedule.scheduler;
+
+import org.schedule.events.ScheduleChangedEvent;
+import org.schedule.mapping.ScheduleConflictDetector;
+import org.schedule.util.SemesterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+
+@Component
+public class ScheduleConflictScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleConflictScheduler.class);
+
+    private final ScheduleConflictDetector conflictDetector;
+    private final Executor conflictExecutor;
+
+    public ScheduleConflictScheduler(ScheduleConflictDetector conflictDetector,
+                                     @Qualifier("conflictExecutor") Executor conflictExecutor) {
+        this.conflictDetector = conflictDetector;
+        this.conflictExecutor = conflictExecutor;
+    }
+
+    // после ScheduleCleanupScheduler, чтобы проверять уже очищенный семестр
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void detectAllConflicts() {
+        log.info("========== ЗАПУСК ПРОВЕРКИ ПЕРЕСЕЧЕНИЙ РАСПИСАНИЯ ==========");
+
+        try {
+            ScheduleConflictDetector.DetectionResult result =
+                    conflictDetector.detectAll(SemesterUtils.getCurrentSemester());
+            log.info("========== ПРОВЕРКА ЗАВЕРШЕНА ЗА {} мс: ресурсов {}, конфликтов {} ==========",
+                    result.getDurationMs(), result.getResources(), result.getConflicts());
+        } catch (Exception e) {
+            log.error("Критическая ошибка при проверке пересечений расписания", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isAllEntities() || event.getEntityNames().isEmpty()) {
+            return;
+        }
+
+        String semester = SemesterUtils.getCurrentSemester();
+        conflictExecutor.execute(() -> {
+            try {
+                conflictDetector.detectForResources(event.getEntityNames(), semester);
+            } catch (Exception e) {
+                log.error("Ошибка при проверке пересечений по событию {}", event, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package org.schedule.scheduler;
+
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.basic.GroupEntity;
+import org.schedule.entity.forBD.basic.RoomEntity;
+import org.schedule.entity.forBD.basic.TeacherEntity;
+import org.schedule.repository.GroupRepository;
+import org.schedule.repository.RoomRepository;
+import org.schedule.repository.ScheduleMetadataRepository;
+import org.schedule.repository.TeacherRepository;
+import org.schedule.reservations.ScheduleService;
+import org.schedule.util.SemesterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Прогрев нового семестра: сразу после смены семестра у всех сущностей нет данных, и первый запрос
+// к каждой платил бы полную загрузку из MIREA. Обходятся только сущности без метаданных текущего
+// семестра, поэтому прерванный прогон продолжается следующим с того же места
+@Component
+public class SemesterPrefetchScheduler {
+    private static final Logger log = LoggerFactory.getLogger(SemesterPrefetchScheduler.class);
+
+    private final GroupRepository groupRepository;
+    private final TeacherRepository teacherRepository;
+    private final RoomRepository roomRepository;
+    private final ScheduleMetadataRepository metadataRepository;
+    private final ScheduleService scheduleService;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final boolean onStartup;
+    private final long intervalMs;
+    private final int maxConsecutiveFailures;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger ingested = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile String semester;
+    private volatile int total;
+    private volatile String currentEntity;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastOutcome;
+
+    public SemesterPrefetchScheduler(GroupRepository groupRepository,
+                                     TeacherRepository teacherRepository,
+                                     RoomRepository roomRepository,
+                                     ScheduleMetadataRepository metadataRepository,
+                                     ScheduleService scheduleService,
+                                     TaskScheduler taskScheduler,
+                                     @Value("${app.prefetch.enabled:true}") boolean enabled,
+                                     @Value("${app.prefetch.on-startup:true}") boolean onStartup,
+                                     @Value("${app.prefetch.interval-ms:2000}") long intervalMs,
+                                     @Value("${app.prefetch.max-consecutive-failures:10}") int maxConsecutiveFailures) {
+        this.groupRepository = groupRepository;
+        this.teacherRepository = teacherRepository;
+        this.roomRepository = roomRepository;
+        this.metadataRepository = metadataRepository;
+        this.scheduleService = scheduleService;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.onStartup = onStartup;
+        this.intervalMs = intervalMs;
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchOnStartup() {
+        if (enabled && onStartup) {
+            startAsync();
+        }
+    }
+
+    // сразу после полуночи, когда меняется семестр; в остальные дни обходить почти нечего
+    @Scheduled(cron = "${app.prefetch.cron:0 5 0 * * ?}")
+    public void prefetchCurrentSemester() {
+        if (!enabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Прогрев семестра уже выполняется, пропускаем запуск");
+            return;
+        }
+        try {
+            runPrefetch();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean startAsync() {
+        if (running.get()) {
+            return false;
+        }
+        taskScheduler.schedule(this::prefetchCurrentSemester, Instant.now());
+        return true;
+    }
+
+    private void runPrefetch() {
+        String currentSemester = SemesterUtils.getCurrentSemester();
+        List<PrefetchTarget> targets = new ArrayList<>();
+        targets.addAll(missingTargets(EntityType.GROUP, groupRepository.findByIdFromApiIsNotNull(),
+                GroupEntity::getGroupName, currentSemester));
+        targets.addAll(missingTargets(EntityType.TEACHER, teacherRepository.findByIdFromApiIsNotNull(),
+                TeacherEntity::getFullName, currentSemester));
+        targets.addAll(missingTargets(EntityType.ROOM, roomRepository.findByIdFromApiIsNotNull(),
+                RoomEntity::getRoomName, currentSemester));
+
+        semester = currentSemester;
+        total = targets.size();
+        processed.set(0);
+        ingested.set(0);
+        skipped.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+
+        if (targets.isEmpty()) {
+            log.debug("Прогрев семестра {}: все сущности уже загружены", currentSemester);
+            finish("nothing-to-do");
+            return;
+        }
+
+        log.info("========== ПРОГРЕВ СЕМЕСТРА {}: {} СУЩНОСТЕЙ ==========", currentSemester, targets.size());
+
+        int consecutiveFailures = 0;
+        for (PrefetchTarget target : targets) {
+            if (!currentSemester.equals(SemesterUtils.getCurrentSemester())) {
+                log.warn("Семестр сменился во время прогрева, прогон будет повторен");
+                finish("semester-changed");
+                return;
+            }
+
+            currentEntity = target.entityName;
+            try {
+                int lessonCount = scheduleService.prefetchEntity(target.entityType, target.entityName);
+                consecutiveFailures = 0;
+                if (lessonCount > 0) {
+                    ingested.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                consecutiveFailures++;
+                log.warn("Не удалось прогреть {} {}: {}", target.entityType, target.entityName, e.getMessage());
+                if (consecutiveFailures >= maxConsecutiveFailures) {
+                    log.error("Прогрев семестра остановлен после {} ошибок подряд, продолжится при следующем запуске",
+                            consecutiveFailures);
+                    finish("aborted");
+                    return;
+                }
+            }
+            processed.incrementAndGet();
+
+            if (!pause()) {
+                finish("interrupted");
+                return;
+            }
+        }
+
+        log.info("========== ПРОГРЕВ СЕМЕСТРА {} ЗАВЕРШЕН: загружено {}, пропущено {}, ошибок {} ==========",
+                currentSemester, ingested.get(), skipped.get(), failed.get());
+        finish("completed");
+    }
+
+    private <T> List<PrefetchTarget> missingTargets(EntityType entityType, List<T> entities,
+                                                    Function<T, String> nameGetter, String currentSemester) {
+        Set<String> loaded = new HashSet<>(
+                metadataRepository.findEntityNamesByEntityTypeAndSemester(entityType.name(), currentSemester));
+
+        List<PrefetchTarget> targets = new ArrayList<>();
+        for (T entity : entities) {
+            String name = nameGetter.apply(entity);
+            if (name != null && !loaded.contains(name)) {
+                targets.add(new PrefetchTarget(entityType, name));
+            }
+        }
+        return targets;
+    }
+
+    // ограничение темпа обращений к MIREA: одна сущность за интервал
+    private boolean pause() {
+        if (intervalMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(intervalMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void finish(String outcome) {
+        currentEntity = null;
+        finishedAt = LocalDateTime.now();
+        lastOutcome = outcome;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("running", running.get());
+        stats.put("semester", semester);
+        stats.put("total", total);
+        stats.put("processed", processed.get());
+        stats.put("ingested", ingested.get());
+        stats.put("skipped", skipped.get());
+        stats.put("failed", failed.get());
+        stats.put("currentEntity", currentEntity);
+        stats.put("startedAt", startedAt);
+        stats.put("finishedAt", finishedAt);
+        stats.put("lastOutcome", lastOutcome);
+        return stats;
+    }
+
+    private static class PrefetchTarget {
+        private final EntityType entityType;
+        private final String entityName;
+
+        private PrefetchTarget(EntityType entityType, String entityName) {
+            this.entityType = entityType;
+            this.entityName = entityName;
+        }
+    }
+}
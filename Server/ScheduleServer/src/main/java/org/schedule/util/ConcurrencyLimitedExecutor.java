@@ -0,0 +1,44 @@
+package org.schedule.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+// Для виртуальных потоков: задача стартует сразу, а ждет разрешения семафора уже в своем потоке,
+// поэтому вызывающий поток не блокируется, а одновременно выполняется не больше maxConcurrency задач
+public class ConcurrencyLimitedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public ConcurrencyLimitedExecutor(Executor delegate, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency должен быть положительным: " + maxConcurrency);
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("active", maxConcurrency - permits.availablePermits());
+        stats.put("waiting", permits.getQueueLength());
+        return stats;
+    }
+}
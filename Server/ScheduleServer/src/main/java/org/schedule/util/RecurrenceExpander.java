@@ -0,0 +1,84 @@
+package org.schedule.util;
+
+import org.schedule.entity.forBD.RecurrenceRule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class RecurrenceExpander {
+
+    private RecurrenceExpander() {}
+
+    // WEEKLY - те же правила, что у клиента (ScheduleFilter.shouldShowOnDate): тот же день недели с шагом
+    // interval недель, until сравнивается с началом дня. DAILY, MONTHLY и YEARLY - по RFC 5545: дата, которой
+    // нет в месяце (31-е, 29 февраля), пропускается. Частоты короче суток не поддерживаются
+    public static List<LocalDate> occurrenceDates(LocalDate firstDate, RecurrenceRule recurrence,
+                                                  Collection<LocalDate> exceptions,
+                                                  LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (firstDate == null || from.isAfter(to)) {
+            return dates;
+        }
+
+        Set<LocalDate> excluded = exceptions != null ? new HashSet<>(exceptions) : Set.of();
+
+        if (recurrence == null) {
+            if (!firstDate.isBefore(from) && !firstDate.isAfter(to) && !excluded.contains(firstDate)) {
+                dates.add(firstDate);
+            }
+            return dates;
+        }
+
+        ChronoUnit unit = stepUnit(recurrence.getFrequency());
+        int interval = recurrence.getInterval() != null && recurrence.getInterval() > 0 ? recurrence.getInterval() : 1;
+
+        LocalDate last = to;
+        LocalDateTime until = recurrence.getUntil();
+        if (until != null && until.toLocalDate().isBefore(last)) {
+            last = until.toLocalDate();
+        }
+
+        // повторения до окна не перебираются: первый шаг - последний, не позже from
+        long step = from.isAfter(firstDate) ? unit.between(firstDate, from) / interval : 0;
+
+        for (;; step++) {
+            LocalDate date = firstDate.plus(step * interval, unit);
+            if (date.isAfter(last)) {
+                break;
+            }
+            // plusMonths/plusYears сдвигают 31-е на последний день месяца - такого повторения нет
+            boolean missingDay = (unit == ChronoUnit.MONTHS || unit == ChronoUnit.YEARS)
+                    && date.getDayOfMonth() != firstDate.getDayOfMonth();
+            if (date.isBefore(from) || missingDay || excluded.contains(date)) {
+                continue;
+            }
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    private static ChronoUnit stepUnit(String frequency) {
+        if (frequency == null) {
+            return ChronoUnit.WEEKS;
+        }
+        switch (frequency.trim().toUpperCase(Locale.ROOT)) {
+            case "DAILY":
+                return ChronoUnit.DAYS;
+            case "WEEKLY":
+                return ChronoUnit.WEEKS;
+            case "MONTHLY":
+                return ChronoUnit.MONTHS;
+            case "YEARLY":
+                return ChronoUnit.YEARS;
+            default:
+                throw new IllegalArgumentException("Неподдерживаемая частота повторения: " + frequency);
+        }
+    }
+}
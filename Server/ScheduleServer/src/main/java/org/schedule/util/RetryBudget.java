@@ -0,0 +1,45 @@
+package org.schedule.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Повторы расходуют токены, которые копятся с каждым запросом (ratio на запрос, не больше maxTokens).
+// При массовых ошибках повторов становится не больше доли ratio от потока запросов,
+// и повторы не умножают нагрузку на лежащий сервис
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+
+    private double tokens;
+    private long allowed;
+    private long denied;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryRetry() {
+        if (tokens < 1) {
+            denied++;
+            return false;
+        }
+        tokens -= 1;
+        allowed++;
+        return true;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tokens", Math.floor(tokens * 100) / 100);
+        stats.put("retriesAllowed", allowed);
+        stats.put("retriesDenied", denied);
+        return stats;
+    }
+}
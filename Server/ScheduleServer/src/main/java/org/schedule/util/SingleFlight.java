@@ -0,0 +1,55 @@
+package org.schedule.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong coalescedWaiters = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public CompletableFuture<V> execute(K key, Supplier<V> supplier, Executor executor) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedWaiters.incrementAndGet();
+            return existing;
+        }
+
+        leaders.incrementAndGet();
+        try {
+            executor.execute(() -> run(key, flight, supplier));
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+
+    private void run(K key, CompletableFuture<V> flight, Supplier<V> supplier) {
+        try {
+            flight.complete(supplier.get());
+        } catch (Throwable t) {
+            failures.incrementAndGet();
+            flight.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "inFlight", inFlight.size(),
+                "leaders", leaders.get(),
+                "coalescedWaiters", coalescedWaiters.get(),
+                "failures", failures.get()
+        );
+    }
+}
@@ -0,0 +1,18 @@
+-- Связи и исключения занятия дописываются через INSERT ... ON CONFLICT DO NOTHING, в том числе
+-- для уже существующих занятий; уникальные индексы служат целью конфликта. Сначала убираются дубликаты
+DELETE FROM lesson_group a USING lesson_group b
+WHERE a.ctid > b.ctid AND a.lesson_id = b.lesson_id AND a.group_id = b.group_id;
+
+DELETE FROM lesson_teacher a USING lesson_teacher b
+WHERE a.ctid > b.ctid AND a.lesson_id = b.lesson_id AND a.teacher_id = b.teacher_id;
+
+DELETE FROM lesson_room a USING lesson_room b
+WHERE a.ctid > b.ctid AND a.lesson_id = b.lesson_id AND a.room_id = b.room_id;
+
+DELETE FROM lesson_exceptions a USING lesson_exceptions b
+WHERE a.ctid > b.ctid AND a.lesson_id = b.lesson_id AND a.exception_date = b.exception_date;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lesson_group ON lesson_group(lesson_id, group_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lesson_teacher ON lesson_teacher(lesson_id, teacher_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lesson_room ON lesson_room(lesson_id, room_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lesson_exceptions ON lesson_exceptions(lesson_id, exception_date);
@@ -0,0 +1,8 @@
+-- Бинарный ответ (application/x-schedule-binary) собирается вместе с JSON и gzip и отдается без Jackson
+ALTER TABLE schedule_payloads
+ADD COLUMN IF NOT EXISTS binary_etag VARCHAR(80),
+ADD COLUMN IF NOT EXISTS binary_body BYTEA;
+
+-- Записи без бинарного тела считаются отсутствующими и пересобираются при первом чтении
+COMMENT ON COLUMN schedule_payloads.binary_etag IS 'Строгий ETag (SHA-256 от binary_body)';
+COMMENT ON COLUMN schedule_payloads.binary_body IS 'Расписание в формате ScheduleBinaryCodec, NULL - запись собрана до его появления';
@@ -0,0 +1,16 @@
+-- Состояние iCal лент MIREA для условных запросов (ETag / Last-Modified) и сравнения по хэшу
+CREATE TABLE IF NOT EXISTS upstream_feed_state (
+    id BIGSERIAL PRIMARY KEY,
+    schedule_id BIGINT NOT NULL,            -- ResponseDto.id
+    schedule_target INTEGER NOT NULL,       -- ResponseDto.target: 1 - группа, 2 - преподаватель, 3 - аудитория
+    etag VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_hash VARCHAR(64),               -- SHA-256 последнего принятого тела iCal
+    last_checked TIMESTAMP NOT NULL,
+    last_changed TIMESTAMP,
+
+    CONSTRAINT uk_upstream_feed UNIQUE (schedule_id, schedule_target)
+);
+
+COMMENT ON TABLE upstream_feed_state IS 'Валидаторы и хэш последней принятой версии iCal ленты';
+COMMENT ON COLUMN upstream_feed_state.content_hash IS 'SHA-256 тела iCal, при совпадении разбор и сохранение пропускаются';
@@ -0,0 +1,9 @@
+-- Естественный ключ занятия: MD5 от дисциплины, типа, времени, групп, преподавателя и семестра
+ALTER TABLE lessons
+ADD COLUMN IF NOT EXISTS lesson_key VARCHAR(32);
+
+-- Уникальный индекс служит целью для INSERT ... ON CONFLICT (lesson_key)
+-- Старые записи без ключа (NULL) заполняются при старте приложения (LessonKeyBackfill)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lessons_lesson_key ON lessons(lesson_key);
+
+COMMENT ON COLUMN lessons.lesson_key IS 'MD5 (32 hex) естественного ключа занятия, уникален';
@@ -0,0 +1,16 @@
+-- Готовые ответы /schedule/final/{title}: JSON и gzip, собираются один раз при сохранении расписания
+CREATE TABLE IF NOT EXISTS schedule_payloads (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_name VARCHAR(255) NOT NULL,
+    semester VARCHAR(20) NOT NULL,
+    etag VARCHAR(80) NOT NULL,              -- строгий ETag (SHA-256 от JSON)
+    json_body BYTEA NOT NULL,
+    gzip_body BYTEA NOT NULL,
+    lesson_count INTEGER NOT NULL,
+    built_at TIMESTAMP NOT NULL,
+
+    CONSTRAINT uk_schedule_payload UNIQUE (entity_name, semester)
+);
+
+COMMENT ON TABLE schedule_payloads IS 'Сериализованные расписания, отдаются контроллером без Jackson и сжатия';
@@ -0,0 +1,17 @@
+-- Развернутые повторения занятий: одна строка на дату занятия и ресурс (группа, преподаватель, аудитория)
+CREATE TABLE IF NOT EXISTS lesson_occurrences (
+    id BIGSERIAL PRIMARY KEY,
+    lesson_id VARCHAR(255) NOT NULL REFERENCES lessons(id) ON DELETE CASCADE,
+    occurrence_date DATE NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    resource_type VARCHAR(20) NOT NULL,     -- GROUP, TEACHER, ROOM
+    resource_name VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_occurrence_date_resource ON lesson_occurrences(occurrence_date, resource_type, resource_name);
+CREATE INDEX IF NOT EXISTS idx_occurrence_resource_date ON lesson_occurrences(resource_name, occurrence_date);
+CREATE INDEX IF NOT EXISTS idx_occurrence_lesson ON lesson_occurrences(lesson_id);
+
+-- Заполнение для уже сохраненных занятий выполняет LessonOccurrenceBackfill при старте приложения
+COMMENT ON TABLE lesson_occurrences IS 'Индекс конкретных дат занятий, пересобирается при изменении занятия';
@@ -0,0 +1,19 @@
+-- Пересечения занятий одного преподавателя или одной аудитории, находит ScheduleConflictDetector
+CREATE TABLE IF NOT EXISTS schedule_conflicts (
+    id BIGSERIAL PRIMARY KEY,
+    resource_type VARCHAR(20) NOT NULL,     -- TEACHER, ROOM
+    resource_name VARCHAR(255) NOT NULL,
+    semester VARCHAR(20) NOT NULL,
+    first_lesson_id VARCHAR(255) NOT NULL,
+    first_discipline VARCHAR(255),
+    second_lesson_id VARCHAR(255) NOT NULL,
+    second_discipline VARCHAR(255),
+    overlap_start TIMESTAMP NOT NULL,
+    overlap_end TIMESTAMP NOT NULL,
+    detected_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_conflict_resource ON schedule_conflicts(semester, resource_type, resource_name);
+CREATE INDEX IF NOT EXISTS idx_conflict_start ON schedule_conflicts(semester, overlap_start);
+
+COMMENT ON TABLE schedule_conflicts IS 'Двойные бронирования преподавателей и аудиторий по данным МИРЭА';
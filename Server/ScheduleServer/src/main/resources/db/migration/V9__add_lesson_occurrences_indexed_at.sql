@@ -0,0 +1,11 @@
+-- Когда даты занятия последний раз разворачивались в lesson_occurrences. Занятие без дат в семестре
+-- (например, все даты в исключениях) не дает строк индекса, и без отметки разворачивалось бы при каждом старте
+ALTER TABLE lessons
+ADD COLUMN IF NOT EXISTS occurrences_indexed_at TIMESTAMP;
+
+-- Занятия, у которых индекс уже есть, считаются обработанными; остальные дозаполнит LessonOccurrenceBackfill
+UPDATE lessons l SET occurrences_indexed_at = now()
+WHERE l.occurrences_indexed_at IS NULL
+  AND EXISTS (SELECT 1 FROM lesson_occurrences o WHERE o.lesson_id = l.id);
+
+COMMENT ON COLUMN lessons.occurrences_indexed_at IS 'Время последней пересборки индекса дат, NULL - индекс не строился';
@@ -0,0 +1,114 @@
+package org.schedule.mapping;
+
+import org.junit.jupiter.api.Test;
+import org.schedule.entity.forBD.LessonType;
+import org.schedule.entity.forBD.basic.LessonEntity;
+import org.schedule.repository.*;
+import org.schedule.util.SemesterUtils;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class SaverToMemoryTest {
+
+    private static final String GROUP = "ИКБО-01-23";
+
+    private final LessonRepository lessonRepository = mock(LessonRepository.class);
+    private final LessonUpsertWriter upsertWriter = mock(LessonUpsertWriter.class);
+    private final LessonOccurrenceIndex occurrenceIndex = mock(LessonOccurrenceIndex.class);
+
+    private final SaverToMemory saver = new SaverToMemory(lessonRepository, mock(GroupRepository.class),
+            mock(TeacherRepository.class), mock(RoomRepository.class), mock(ScheduleMetadataRepository.class),
+            mock(UpstreamFeedStateRepository.class), upsertWriter, mock(ApplicationEventPublisher.class),
+            mock(SchedulePayloadWriter.class), occurrenceIndex, mock(ReferenceDictionary.class),
+            Runnable::run, false, 100, 500, 30);
+
+    @Test
+    void syncCountsInsertedUpdatedDeletedAndUnchanged() {
+        LessonEntity unchanged = stored("Физика", 9, "А-101");
+        LessonEntity moved = stored("Химия", 11, "А-102");
+        LessonEntity removed = stored("История", 13, "А-103");
+        when(lessonRepository.findForSyncByGroup(GROUP, SemesterUtils.getCurrentSemester()))
+                .thenReturn(List.of(unchanged, moved, removed));
+
+        LessonEntity added = lesson("Алгебра", 15, "А-104");
+        when(upsertWriter.upsertLessons(anyList())).thenAnswer(invocation -> {
+            List<LessonEntity> lessons = invocation.getArgument(0);
+            assertEquals(List.of(added), lessons);
+            added.setId("added");
+            return new LessonUpsertWriter.UpsertResult(lessons, List.of(), List.of());
+        });
+
+        SaverToMemory.BatchSaveResult result = saver.syncEntityLessons(List.of(
+                lesson("Физика", 9, "А-101"), lesson("Химия", 11, "Б-202"), added), "GROUP", GROUP, true);
+
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(1, result.getUnchangedCount());
+        assertEquals("Б-202", moved.getRoom());
+        verify(lessonRepository).deleteAll(List.of(removed));
+        verify(occurrenceIndex).regenerate(List.of("added", moved.getId()));
+    }
+
+    @Test
+    void incompleteSetKeepsMissingLessons() {
+        LessonEntity unchanged = stored("Физика", 9, "А-101");
+        LessonEntity fromFailedFeed = stored("История", 13, "А-103");
+        when(lessonRepository.findForSyncByGroup(GROUP, SemesterUtils.getCurrentSemester()))
+                .thenReturn(List.of(unchanged, fromFailedFeed));
+        when(upsertWriter.upsertLessons(anyList())).thenReturn(
+                new LessonUpsertWriter.UpsertResult(List.of(), List.of(), List.of()));
+
+        SaverToMemory.BatchSaveResult result = saver.syncEntityLessons(
+                List.of(lesson("Физика", 9, "А-101")), "GROUP", GROUP, false);
+
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(0, result.getDeletedCount());
+        assertEquals(1, result.getUnchangedCount());
+        verify(lessonRepository, never()).deleteAll(anyList());
+    }
+
+    @Test
+    void batchSaveRegeneratesOccurrencesOfUpdatedLessons() {
+        LessonEntity added = lesson("Алгебра", 15, "А-104");
+        LessonEntity moved = lesson("Химия", 11, "Б-202");
+        LessonEntity same = lesson("Физика", 9, "А-101");
+        when(upsertWriter.upsertLessons(anyList())).thenAnswer(invocation -> {
+            added.setId("added");
+            moved.setId("moved");
+            same.setId("same");
+            return new LessonUpsertWriter.UpsertResult(List.of(added), List.of(moved), List.of(moved, same));
+        });
+
+        saver.saveLessonsBatch(new ArrayList<>(List.of(added, moved, same)), "GROUP", GROUP);
+
+        verify(occurrenceIndex).regenerate(List.of("added", "moved"));
+    }
+
+    private LessonEntity stored(String discipline, int hour, String room) {
+        LessonEntity lesson = lesson(discipline, hour, room);
+        lesson.setSemester(SemesterUtils.getCurrentSemester());
+        lesson.setLessonKey(LessonKeys.naturalKeyHash(lesson));
+        lesson.setId(discipline);
+        return lesson;
+    }
+
+    private LessonEntity lesson(String discipline, int hour, String room) {
+        LessonEntity lesson = new LessonEntity();
+        lesson.setDiscipline(discipline);
+        lesson.setLessonType(LessonType.LK);
+        lesson.setStartTime(LocalDateTime.of(2025, 9, 1, hour, 0));
+        lesson.setEndTime(LocalDateTime.of(2025, 9, 1, hour + 1, 30));
+        lesson.setRoom(room);
+        lesson.setGroupsSummary(GROUP);
+        lesson.setExceptions(new ArrayList<>());
+        return lesson;
+    }
+}
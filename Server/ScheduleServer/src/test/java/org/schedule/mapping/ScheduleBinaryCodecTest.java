@@ -0,0 +1,215 @@
+package org.schedule.mapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.schedule.entity.ScheduleResponseDto;
+import org.schedule.entity.forBD.LessonType;
+import org.schedule.entity.forBD.RecurrenceRule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScheduleBinaryCodecTest {
+
+    // тот же файл лежит в тестовых ресурсах клиента и читается ScheduleBinaryDecoderTest
+    private static final String GOLDEN_RESOURCE = "/binary/schedule-golden.bin";
+    private static final Path CLIENT_GOLDEN =
+            Path.of("../../ScheduleApp/app/src/test/resources/binary/schedule-golden.bin");
+
+    // как у Spring Boot: даты строками ISO, а не массивами
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void roundTripMatchesJson() throws Exception {
+        assertRoundTrip(goldenSchedule());
+    }
+
+    @Test
+    void emptySchedule() throws Exception {
+        assertRoundTrip(List.of());
+    }
+
+    @Test
+    void nullListsAndRecurrence() throws Exception {
+        ScheduleResponseDto lesson = lesson("Физика", LessonType.LAB, null, null, null, null, null);
+        lesson.setDescription(null);
+        lesson.setGroupsSummary(null);
+
+        ScheduleResponseDto decoded = assertRoundTrip(List.of(lesson)).get(0);
+        assertNull(decoded.getRooms());
+        assertNull(decoded.getTeachers());
+        assertNull(decoded.getGroups());
+        assertNull(decoded.getRecurrence());
+        assertNull(decoded.getExceptions());
+        assertNull(decoded.getGroupsSummary());
+    }
+
+    @Test
+    void emptyListsStayEmpty() throws Exception {
+        ScheduleResponseDto lesson = lesson("Физика", LessonType.PR, List.of(), List.of(), List.of(), null, List.of());
+
+        ScheduleResponseDto decoded = assertRoundTrip(List.of(lesson)).get(0);
+        assertEquals(List.of(), decoded.getRooms());
+        assertEquals(List.of(), decoded.getExceptions());
+    }
+
+    @Test
+    void recurrenceWithNullIntervalAndUntil() throws Exception {
+        RecurrenceRule recurrence = recurrence("WEEKLY", null, null);
+        ScheduleResponseDto lesson = lesson("Физика", LessonType.LK, List.of("А-1"), List.of(), List.of(), recurrence, null);
+
+        RecurrenceRule decoded = assertRoundTrip(List.of(lesson)).get(0).getRecurrence();
+        assertEquals("WEEKLY", decoded.getFrequency());
+        assertNull(decoded.getInterval());
+        assertNull(decoded.getUntil());
+    }
+
+    @Test
+    void recurrenceUntilKeepsSeconds() throws Exception {
+        // парсер берет UNTIL из RRULE вида 20251228T235959Z
+        RecurrenceRule recurrence = recurrence("WEEKLY", 2, LocalDateTime.of(2025, 12, 28, 23, 59, 59));
+        ScheduleResponseDto lesson = lesson("Физика", LessonType.LK, null, null, null, recurrence, null);
+
+        assertEquals(recurrence.getUntil(), assertRoundTrip(List.of(lesson)).get(0).getRecurrence().getUntil());
+    }
+
+    @Test
+    void datesAndTimesBefore1970() throws Exception {
+        // отрицательные и немонотонные разности эпохальных дней проходят через zigzag
+        List<LocalDate> exceptions = List.of(LocalDate.of(2025, 11, 4), LocalDate.of(1969, 12, 31),
+                LocalDate.of(1950, 1, 1), LocalDate.of(1970, 1, 1), LocalDate.of(2025, 11, 3));
+        ScheduleResponseDto lesson = lesson("Физика", LessonType.LK, null, null, null, null, exceptions);
+        lesson.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59));
+        lesson.setEndTime(LocalDateTime.of(1960, 6, 1, 9, 0, 30));
+
+        ScheduleResponseDto decoded = assertRoundTrip(List.of(lesson)).get(0);
+        assertEquals(exceptions, decoded.getExceptions());
+        assertEquals(lesson.getStartTime(), decoded.getStartTime());
+        assertEquals(lesson.getEndTime(), decoded.getEndTime());
+    }
+
+    @Test
+    void nonAsciiAndRepeatedStrings() throws Exception {
+        List<ScheduleResponseDto> schedule = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ScheduleResponseDto lesson = lesson("Иностранный язык (английский) — ёжик 🦔", LessonType.PR,
+                    List.of("Ж-101 (В-78)"), List.of("Ёлкин Пётр Семёнович", ""), List.of("ИКБО-01-23"), null, null);
+            lesson.setDescription("Подгруппа №" + i + " \"в кавычках\"\nи перенос");
+            schedule.add(lesson);
+        }
+
+        List<ScheduleResponseDto> decoded = assertRoundTrip(schedule);
+        assertEquals("", decoded.get(0).getTeachers().get(1));
+    }
+
+    @Test
+    void readsVersionOneMinutes() {
+        // v1: время в минутах от эпохи со сдвигом +1, без zigzag
+        long start = LocalDateTime.of(2025, 9, 1, 9, 0).toEpochSecond(ZoneOffset.UTC) / 60 + 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : new long[]{1, 1}) {
+            ScheduleBinaryCodec.writeVarint(out, value);
+        }
+        ScheduleBinaryCodec.writeVarint(out, "Физика".getBytes(StandardCharsets.UTF_8).length);
+        out.writeBytes("Физика".getBytes(StandardCharsets.UTF_8));
+        for (long value : new long[]{1, 1, 0, start, start + 90, 0, 0, 0, 0, 0, 0, 0}) {
+            ScheduleBinaryCodec.writeVarint(out, value);
+        }
+
+        ScheduleResponseDto decoded = ScheduleBinaryCodec.decode(out.toByteArray()).get(0);
+        assertEquals("Физика", decoded.getDiscipline());
+        assertEquals(LocalDateTime.of(2025, 9, 1, 9, 0), decoded.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 9, 1, 10, 30), decoded.getEndTime());
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] data = ScheduleBinaryCodec.encode(goldenSchedule());
+        data[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> ScheduleBinaryCodec.decode(data));
+    }
+
+    @Test
+    void encodingMatchesGoldenFile() throws Exception {
+        byte[] golden;
+        try (InputStream in = getClass().getResourceAsStream(GOLDEN_RESOURCE)) {
+            assertNotNull(in, "нет эталонного файла " + GOLDEN_RESOURCE);
+            golden = in.readAllBytes();
+        }
+
+        assertArrayEquals(golden, ScheduleBinaryCodec.encode(goldenSchedule()),
+                "формат изменился: обновите эталон и декодер клиента");
+        assertEquals(json(goldenSchedule()), json(ScheduleBinaryCodec.decode(golden)));
+    }
+
+    @Test
+    void clientTestReadsSameGoldenFile() throws Exception {
+        assumeTrue(Files.exists(CLIENT_GOLDEN), "модуль клиента не рядом с сервером");
+        try (InputStream in = getClass().getResourceAsStream(GOLDEN_RESOURCE)) {
+            assertNotNull(in);
+            assertArrayEquals(in.readAllBytes(), Files.readAllBytes(CLIENT_GOLDEN),
+                    "эталон клиента расходится с серверным");
+        }
+    }
+
+    private List<ScheduleResponseDto> assertRoundTrip(List<ScheduleResponseDto> schedule) throws Exception {
+        List<ScheduleResponseDto> decoded = ScheduleBinaryCodec.decode(ScheduleBinaryCodec.encode(schedule));
+        assertEquals(json(schedule), json(decoded));
+        return decoded;
+    }
+
+    private String json(List<ScheduleResponseDto> schedule) throws Exception {
+        return objectMapper.writeValueAsString(schedule);
+    }
+
+    // содержимое эталона schedule-golden.bin; значения проверяются и в тесте декодера клиента
+    static List<ScheduleResponseDto> goldenSchedule() {
+        ScheduleResponseDto lecture = lesson("Линейная алгебра", LessonType.LK, List.of("А-419 (В-78)"),
+                List.of("Иванов Иван Иванович"), List.of("ИКБО-01-23", "ИКБО-02-23"),
+                recurrence("WEEKLY", 2, LocalDateTime.of(2025, 12, 28, 23, 59, 59)),
+                List.of(LocalDate.of(2025, 11, 4), LocalDate.of(1969, 12, 31)));
+        lecture.setStartTime(LocalDateTime.of(2025, 9, 1, 9, 0));
+        lecture.setEndTime(LocalDateTime.of(2025, 9, 1, 10, 30));
+        lecture.setGroupsSummary("ИКБО-01-23, ИКБО-02-23");
+
+        ScheduleResponseDto lab = lesson("Физика", LessonType.LAB, null, List.of(), List.of("ИКБО-01-23"),
+                recurrence("WEEKLY", null, null), null);
+        lab.setStartTime(LocalDateTime.of(2025, 9, 3, 10, 40));
+        lab.setEndTime(LocalDateTime.of(2025, 9, 3, 12, 10));
+        lab.setGroupsSummary("ИКБО-01-23");
+        lab.setDescription("Подгруппа 1");
+
+        return List.of(lecture, lab);
+    }
+
+    private static ScheduleResponseDto lesson(String discipline, LessonType type, List<String> rooms,
+                                              List<String> teachers, List<String> groups,
+                                              RecurrenceRule recurrence, List<LocalDate> exceptions) {
+        return new ScheduleResponseDto(discipline, type, LocalDateTime.of(2025, 9, 1, 9, 0),
+                LocalDateTime.of(2025, 9, 1, 10, 30), rooms, teachers, groups,
+                groups != null ? String.join(", ", groups) : null, null, recurrence, exceptions);
+    }
+
+    private static RecurrenceRule recurrence(String frequency, Integer interval, LocalDateTime until) {
+        RecurrenceRule recurrence = new RecurrenceRule();
+        recurrence.setFrequency(frequency);
+        recurrence.setInterval(interval);
+        recurrence.setUntil(until);
+        return recurrence;
+    }
+}
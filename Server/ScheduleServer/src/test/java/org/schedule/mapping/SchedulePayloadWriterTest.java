@@ -0,0 +1,41 @@
+package org.schedule.mapping;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.schedule.entity.forBD.EntityType;
+import org.schedule.entity.forBD.SchedulePayloadEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulePayloadWriterTest {
+
+    private final SchedulePayloadWriter writer = new SchedulePayloadWriter(
+            Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+            null, null, null);
+
+    @Test
+    void binaryBodyIsBuiltWithJson() {
+        SchedulePayloadEntity payload = writer.build(EntityType.GROUP, "ИКБО-01-23", "2025-1",
+                ScheduleBinaryCodecTest.goldenSchedule());
+
+        assertArrayEquals(ScheduleBinaryCodec.encode(ScheduleBinaryCodecTest.goldenSchedule()),
+                payload.getBinaryBody());
+    }
+
+    @Test
+    void binaryEtagDiffersFromJsonAndFollowsContent() {
+        SchedulePayloadEntity payload = writer.build(EntityType.GROUP, "ИКБО-01-23", "2025-1",
+                ScheduleBinaryCodecTest.goldenSchedule());
+        SchedulePayloadEntity same = writer.build(EntityType.GROUP, "ИКБО-01-23", "2025-1",
+                ScheduleBinaryCodecTest.goldenSchedule());
+        SchedulePayloadEntity other = writer.build(EntityType.GROUP, "ИКБО-01-23", "2025-1",
+                ScheduleBinaryCodecTest.goldenSchedule().subList(0, 1));
+
+        String etag = payload.getBinaryEtag();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertNotEquals(payload.getEtag(), etag);
+        assertEquals(same.getBinaryEtag(), etag);
+        assertNotEquals(other.getBinaryEtag(), etag);
+    }
+}
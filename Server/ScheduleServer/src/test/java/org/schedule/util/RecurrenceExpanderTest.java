@@ -0,0 +1,104 @@
+package org.schedule.util;
+
+import org.junit.jupiter.api.Test;
+import org.schedule.entity.forBD.RecurrenceRule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceExpanderTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 9, 1);
+
+    @Test
+    void singleLessonOnlyInsideWindow() {
+        assertEquals(List.of(MONDAY),
+                RecurrenceExpander.occurrenceDates(MONDAY, null, null, MONDAY, MONDAY.plusDays(6)));
+        assertEquals(List.of(),
+                RecurrenceExpander.occurrenceDates(MONDAY, null, null, MONDAY.plusDays(1), MONDAY.plusDays(6)));
+        assertEquals(List.of(),
+                RecurrenceExpander.occurrenceDates(MONDAY, null, List.of(MONDAY), MONDAY, MONDAY.plusDays(6)));
+    }
+
+    @Test
+    void weeklyWithInterval() {
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(MONDAY, rule("WEEKLY", 2, null), null,
+                MONDAY, LocalDate.of(2025, 10, 13));
+
+        assertEquals(List.of(MONDAY, LocalDate.of(2025, 9, 15), LocalDate.of(2025, 9, 29),
+                LocalDate.of(2025, 10, 13)), dates);
+    }
+
+    @Test
+    void untilIsInclusiveByDay() {
+        // until в середине дня: занятие этого дня еще входит
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(MONDAY,
+                rule("WEEKLY", 1, LocalDateTime.of(2025, 9, 15, 10, 30)), null, MONDAY, LocalDate.of(2025, 12, 31));
+
+        assertEquals(List.of(MONDAY, LocalDate.of(2025, 9, 8), LocalDate.of(2025, 9, 15)), dates);
+    }
+
+    @Test
+    void exceptionsAreSkipped() {
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(MONDAY, rule("WEEKLY", 1, null),
+                List.of(LocalDate.of(2025, 9, 8), LocalDate.of(2025, 9, 10)), MONDAY, LocalDate.of(2025, 9, 22));
+
+        assertEquals(List.of(MONDAY, LocalDate.of(2025, 9, 15), LocalDate.of(2025, 9, 22)), dates);
+    }
+
+    @Test
+    void windowSkipsEarlierRepetitions() {
+        // окно начинается между повторениями: первое - следующее после from, а не раньше
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(MONDAY, rule("WEEKLY", 2, null), null,
+                LocalDate.of(2025, 9, 16), LocalDate.of(2025, 10, 27));
+        assertEquals(List.of(LocalDate.of(2025, 9, 29), LocalDate.of(2025, 10, 13), LocalDate.of(2025, 10, 27)), dates);
+
+        // from совпадает с повторением
+        dates = RecurrenceExpander.occurrenceDates(MONDAY, rule("WEEKLY", 2, null), null,
+                LocalDate.of(2025, 9, 29), LocalDate.of(2025, 10, 5));
+        assertEquals(List.of(LocalDate.of(2025, 9, 29)), dates);
+    }
+
+    @Test
+    void dailyFrequency() {
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(MONDAY, rule("DAILY", 3, null),
+                List.of(LocalDate.of(2025, 9, 7)), LocalDate.of(2025, 9, 2), LocalDate.of(2025, 9, 13));
+
+        assertEquals(List.of(LocalDate.of(2025, 9, 4), LocalDate.of(2025, 9, 10), LocalDate.of(2025, 9, 13)), dates);
+    }
+
+    @Test
+    void monthlySkipsMonthsWithoutTheDay() {
+        LocalDate first = LocalDate.of(2025, 1, 31);
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(first, rule("MONTHLY", 1, null), null,
+                first, LocalDate.of(2025, 6, 30));
+
+        assertEquals(List.of(first, LocalDate.of(2025, 3, 31), LocalDate.of(2025, 5, 31)), dates);
+    }
+
+    @Test
+    void yearlyFrequency() {
+        LocalDate first = LocalDate.of(2024, 2, 29);
+        List<LocalDate> dates = RecurrenceExpander.occurrenceDates(first, rule("yearly", 1, null), null,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2028, 12, 31));
+
+        assertEquals(List.of(LocalDate.of(2028, 2, 29)), dates);
+    }
+
+    @Test
+    void subDailyFrequencyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceExpander.occurrenceDates(MONDAY,
+                rule("HOURLY", 1, null), null, MONDAY, MONDAY.plusDays(1)));
+    }
+
+    private static RecurrenceRule rule(String frequency, Integer interval, LocalDateTime until) {
+        RecurrenceRule rule = new RecurrenceRule();
+        rule.setFrequency(frequency);
+        rule.setInterval(interval);
+        rule.setUntil(until);
+        return rule;
+    }
+}